@@ -5,7 +5,7 @@
   Java class name: BlueRedWhite1
   Copyright (c) 2022 by Keith Fenske.  Apache License or GNU GPL.
 
-  BlueRedWhite is a Java 1.4 graphical (GUI) application to test the size and
+  BlueRedWhite is a Java 7 graphical (GUI) application to test the size and
   spacing of alternating blue and red lines on a white background, as used by
   icons for the "Hex Byte Char" application.  Medium blue and medium red are
   strong colors when placed near each other.  Separating them with white
@@ -18,6 +18,29 @@
   even number of pixels (that is, a multiple of two) for icon sizes and the
   width of the white lines, which is not enforced in an obvious manner.
 
+  With no options on the command line, this program runs as a graphical
+  application.  Options for the icon parameters export every combination in a
+  range of values as PNG files, without opening a window.  Run with the "-?"
+  option for a summary.
+
+  Scripts and containers should run "java BlueRedWhite1Batch" with the same
+  options, which never loads Swing and starts much faster.  PNG and icon files
+  are written by our own encoder, not ImageIO.  Only the benchmark (-benchmark)
+  creates AWT images, because timing the GUI's image and drawing stages is its
+  job; those are off-screen and work without a display.  Newer Java compilers
+  join strings with "invokedynamic", which costs almost 0.1 seconds the first
+  time; compile with "javac --release 8" (or older) to avoid that.
+
+  Icons are created by the "blueredwhite1" package in the folder of the same
+  name: public classes BlueRedWhite1Spec (parameters), BlueRedWhite1Render
+  (drawing and caches), BlueRedWhite1Quad (finished icons), and a few helpers.
+  They don't use the GUI, and one renderer is safe to call from any number of
+  threads.  This program is only one client; other Java applications may put
+  the compiled package on their class path and create their own renderers.
+  Timing statistics are an optional listener on each renderer, which only the
+  GUI installs.  Compile with "javac BlueRedWhite1.java" from this folder, and
+  the package is found and compiled too.
+
   Apache License or GNU General Public License
   --------------------------------------------
   BlueRedWhite1 is free software and has been released under the terms and
@@ -38,13 +61,15 @@
       sizes instead of all numbers from 16 to 512 (or more), with a text field
       where the user could enter other numbers.  The width of the white lines
       should move in correct multiples of two.
-  (3) Creating the image should be separate from drawing (painting).  There is
-      no need to recreate the image when resizing the window or zooming.  Have
-      fun getting the details right for the JScrollPane!
-  (4) More efficient methods of rounding corners of a rectangle don't make much
-      difference here and are more difficult to understand.  Any algorithm that
-      mixes floating-point and integer arithmetic may have strange behavior
-      when dealing with indivisible pixels on a square grid.
+  (3) Creating the image is now separate from drawing (painting), and recent
+      images are cached by their parameters.  There is no need to recreate the
+      image when resizing the window or zooming.  Have fun getting the details
+      right for the JScrollPane!
+  (4) Rounded corners are found one row at a time, as a span of pixels, which
+      is fast enough for very large icons but more difficult to understand than
+      testing each pixel.  Any algorithm that mixes floating-point and integer
+      arithmetic may have strange behavior when dealing with indivisible pixels
+      on a square grid.
 */
 
 import java.awt.*;                // older Java GUI support
@@ -52,14 +77,21 @@ import java.awt.datatransfer.*;   // clipboard
 import java.awt.event.*;          // older Java GUI event support
 import java.awt.image.*;          // buffered images
 import java.io.*;                 // standard I/O
+import java.util.*;               // calendars, dates, lists, maps, vectors
 import javax.swing.*;             // newer Java GUI support
 import javax.swing.border.*;      // decorative borders
 import javax.swing.event.*;       // change listener for sliders
 
+import blueredwhite1.*;           // icon rendering without GUI
+
 public class BlueRedWhite1
 {
   /* constants */
 
+  static final int EXIT_FAILURE = 1; // incorrect request or errors found
+  static final int EXIT_SUCCESS = 0; // request completed successfully, as
+                                  // .. scripts expect
+
   static final String COPYRIGHT_NOTICE =
     "Copyright (c) 2022 by Keith Fenske.  Apache License or GNU GPL.";
   static final String PROGRAM_TITLE =
@@ -68,28 +100,44 @@ public class BlueRedWhite1
 
   /* class variables */
 
+  static BlueRedWhite1Compare compareCanvas; // comparison grid of icons
   static JSlider borderSlider, curveSlider, redSlider, sizeSlider, whiteSlider,
     zoomSlider;
   static JLabel borderText, curveText, redText, sizeText, whiteText, zoomText;
   static JLabel borderValue, curveValue, redValue, sizeValue, whiteValue,
     zoomValue;
-  static BufferedImage clipImage; // image sent to clipboard
   static JFrame mainFrame;        // this application's window
   static JMenuBar menuBar;        // always visible menu bar
-  static JMenuItem menuCopy, menuExit; // numerous menu items ;-)
+  static JMenuItem menuCopy, menuExit, menuIcon, menuZoom; // numerous menu
+                                  // .. items ;-)
+  static JCheckBoxMenuItem menuCompare; // show comparison grid
+  static JCheckBoxMenuItem menuOverlay; // show statistics on icon
+  static JMenuItem menuStats;     // save statistics as CSV file
   static BlueRedWhite1Grid outputCanvas; // where we draw the result
   static JScrollPane outputPane;  // canvas may need scroll bars
 
 /*
   main() method
 
-  We run as a graphical application only.  Set the window layout and then let
-  the graphical interface run the show.
+  With no parameters on the command line, we run as a graphical application.
+  Set the window layout and then let the graphical interface run the show.
+  Otherwise, parameters select a range of icon images to export as PNG files,
+  without a window (see BlueRedWhite1Batch).
 */
   public static void main(String[] args)
   {
+    /* Any option at all means we are a batch export, so we never create a
+    window.  Options are handled by a class that doesn't use Swing. */
+
+    if (args.length > 0)
+      BlueRedWhite1Batch.main(args); // doesn't return
+
+    /* There were no command-line options, so create the graphical interface
+    and run as a normal application. */
+
     ActionListener action = new BlueRedWhite1User(); // shared action listener
-    clipImage = null;             // no image data yet for clipboard
+    BlueRedWhite1Stats.enabled = true; // collect timing for GUI only
+    BlueRedWhite1Batch.renderer.setListener(BlueRedWhite1Stats.listener);
     Font commonFont = new Font(SYSTEM_FONT, Font.PLAIN, 18); // most dialog
     Border emptyBorder = BorderFactory.createEmptyBorder(); // remove borders
     mainFrame = null;             // during setup, there is no GUI window
@@ -110,6 +158,40 @@ public class BlueRedWhite1
       InputEvent.CTRL_MASK));
     menuCopy.setFont(commonFont);
     menuBar.add(menuCopy);
+    menuZoom = new JMenuItem("Copy Zoomed");
+    menuZoom.addActionListener(action);
+    menuZoom.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_C,
+      (InputEvent.CTRL_DOWN_MASK | InputEvent.SHIFT_DOWN_MASK)));
+    menuZoom.setFont(commonFont);
+    menuBar.add(menuZoom);
+    menuIcon = new JMenuItem("Save Icon File");
+    menuIcon.addActionListener(action);
+    menuIcon.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_S,
+      InputEvent.CTRL_DOWN_MASK));
+    menuIcon.setFont(commonFont);
+    menuBar.add(menuIcon);
+    JMenu menu25 = new JMenu("View"); // single icon or comparison grid
+    menu25.setFont(commonFont);
+    menuCompare = new JCheckBoxMenuItem("Compare Grid");
+    menuCompare.addActionListener(action);
+    menuCompare.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_G,
+      InputEvent.CTRL_DOWN_MASK));
+    menuCompare.setFont(commonFont);
+    menu25.add(menuCompare);
+    menuBar.add(menu25);
+    JMenu menu30 = new JMenu("Stats"); // timing statistics, not used often
+    menu30.setFont(commonFont);
+    menuOverlay = new JCheckBoxMenuItem("Show Overlay");
+    menuOverlay.addActionListener(action);
+    menuOverlay.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_T,
+      InputEvent.CTRL_DOWN_MASK));
+    menuOverlay.setFont(commonFont);
+    menu30.add(menuOverlay);
+    menuStats = new JMenuItem("Save CSV File");
+    menuStats.addActionListener(action);
+    menuStats.setFont(commonFont);
+    menu30.add(menuStats);
+    menuBar.add(menu30);
     menuExit = new JMenuItem("Exit (Close)");
     menuExit.addActionListener(action);
     menuExit.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_X,
@@ -125,7 +207,7 @@ public class BlueRedWhite1
     sizeText = new JLabel("Overall size (pixels x2):");
     sizeText.setFont(commonFont);
     panel40.add(sizeText, BorderLayout.WEST);
-    sizeSlider = new JSlider(16, 512, 256);
+    sizeSlider = new JSlider(16, 8192, 256); // command line allows more
     sizeSlider.addChangeListener((ChangeListener) action);
     panel40.add(sizeSlider, BorderLayout.CENTER);
     sizeValue = new JLabel(String.valueOf(sizeSlider.getValue()));
@@ -204,8 +286,10 @@ public class BlueRedWhite1
     outputCanvas = new BlueRedWhite1Grid();
 //  outputCanvas.setBackground(Color.GRAY);
     outputCanvas.setPreferredSize(new Dimension(350, 350));
+    compareCanvas = new BlueRedWhite1Compare(); // shown instead, if chosen
     outputPane = new JScrollPane(outputCanvas); // may need to scroll
     outputPane.setBorder(emptyBorder); // no border necessary here
+    BlueRedWhite1User.updateIconImage(false); // first image from sliders
 
     JPanel panel75 = new JPanel(new BorderLayout(20, 0));
     panel75.add(panel70, BorderLayout.WEST);
@@ -233,263 +317,3187 @@ public class BlueRedWhite1
 
   } // end of main() method
 
+
+/*
+  showHelp() method
+
+  Show the help summary.  This is a UNIX standard and is expected for all
+  console applications, even very simple ones.
+*/
+  static void showHelp()
+  {
+    System.err.println();
+    System.err.println(PROGRAM_TITLE);
+    System.err.println();
+    System.err.println("  java  BlueRedWhite1  [options]");
+    System.err.println();
+    System.err.println("Options:");
+    System.err.println("  -? = -help = show summary of command-line syntax");
+    System.err.println("  -animate = write one animated PNG per size, one frame per combination");
+    System.err.println("  -animate=# = milliseconds per animation frame; default is -animate=100");
+    System.err.println("  -benchmark = measure speed of each rendering stage, write no files");
+    System.err.println("  -benchmark=# = milliseconds to measure each test; default is -benchmark=200");
+    System.err.println("  -border=# = internal border in pixels; default is -border=8");
+    System.err.println("  -curve=# = corner curve in percent; default is -curve=70");
+    System.err.println("  -icon=file = write icon file (*.ico) with sizes 16 to 256, instead of PNG");
+    System.err.println("  -output=folder = where to write PNG files; default is current folder");
+    System.err.println("  -red=# = blue red width in pixels; default is -red=18");
+    System.err.println("  -serve=# = answer HTTP requests for PNG icons on this local port (127.0.0.1)");
+    System.err.println("  -size=# = overall size in pixels, up to 65536; default is -size=256");
+    System.err.println("  -svg = write vector SVG files instead of PNG; same look at any size");
+    System.err.println("  -svg=pixels = write SVG files that match PNG pixels exactly (small sizes)");
+    System.err.println("  -threads=# = number of rendering threads; default is number of processors");
+    System.err.println("  -validate = check drawing code for all parameters, sizes 16-512 or -size=#");
+    System.err.println("  -validate=file = also compare checksums with golden file, which must exist");
+    System.err.println("  -validate-write=file = check drawing code, then write checksums as golden file");
+    System.err.println("  -white=# = white width in pixels; default is -white=12");
+    System.err.println();
+    System.err.println("Numbers (#) may be a single value, a range like 16-512, or a range with a");
+    System.err.println("step like 16-512/16.  Any option exports one PNG file for each combination");
+    System.err.println("of values, without opening a window.  With no options, the graphical");
+    System.err.println("interface (GUI) is started.  For scripts, \"java  BlueRedWhite1Batch  [options]\"");
+    System.err.println("starts faster, because the GUI classes are never loaded.");
+    System.err.println();
+    System.err.println(COPYRIGHT_NOTICE);
+//  System.err.println();
+
+  } // end of showHelp() method
+
 } // end of BlueRedWhite1 class
 
 // ------------------------------------------------------------------------- //
 
 /*
-  BlueRedWhite1Grid class
-
-  This class draws a pattern centered in the panel, with alternating blue and
-  red lines on a white background, inside a cropped and rounded rectangle.
+  BlueRedWhite1Anim class
+
+  This class writes animated PNG (APNG) files that step through the parameter
+  lists, one frame for each combination, so designers can watch the spacing
+  change.  There is one file for each icon size, because frames in an
+  animation all have the same size.  Browsers that don't know APNG show the
+  first frame as a normal PNG image.
+
+  Frames are rendered in compact form by several threads at once, a few at a
+  time, and only two frames in a row are compared.  After the first frame, each
+  frame holds only the rectangle that changed since the frame before, and
+  pixels inside that rectangle that didn't change are a transparent color, so
+  the previous frame shows through.  Long runs of the transparent color
+  compress to almost nothing.  The file size depends upon how many pixels
+  change, not upon the number of frames times the area of the image.
 */
 
-class BlueRedWhite1Grid extends JPanel implements Transferable
+class BlueRedWhite1Anim implements Runnable
 {
   /* constants */
 
-  static Color OUR_BLUE = new Color(0, 0, 128); // medium blue
-  static Color OUR_GRAY = new Color(204, 204, 204); // background
-  static Color OUR_RED = new Color(128, 0, 0); // medium red
+  static final int DEFAULT_MILLIS = 100; // delay per frame for -animate
+  static final byte UNCHANGED = 4; // color index: transparent, shows the
+                                  // .. previous frame (see BlueRedWhite1Png)
+
+  /* class variables */
+
+  static int frameMillis = 0;     // delay per frame, zero for no animation
+
+  /* instance variables */
+
+  int[][] boxes;                  // changed rectangle for each frame: x, y,
+                                  // .. width, height
+  IOException failure;            // first error while compressing, if any
+  byte[][] frameData;             // compressed pixels for each frame
+  int lastFrame;                  // one past the last frame in this batch
+  int nextFrame;                  // next frame for a thread to work on
+  boolean packPhase;              // false while rendering, true compressing
+  BlueRedWhite1Quad[] quads;      // frames in compact form, while needed
+  BlueRedWhite1Spec[] specs;      // parameters for each frame
 
   /* class constructor */
 
-  public BlueRedWhite1Grid()
+  public BlueRedWhite1Anim(BlueRedWhite1Spec[] specs)
   {
-    super();                      // initialize our superclass first (JPanel)
+    this.boxes = new int[specs.length][];
+    this.failure = null;
+    this.frameData = new byte[specs.length][];
+    this.quads = new BlueRedWhite1Quad[specs.length];
+    this.specs = specs;
   }
 
-  /* transferable interface to copy image to clipboard */
-
-  public Object getTransferData(DataFlavor flavor)
-    throws IOException, UnsupportedFlavorException
+/*
+  packFrame() method
+
+  Compare a frame with the frame before it, and compress only the rectangle
+  that changed, with unchanged pixels set to the transparent color.  Both
+  frames are mirrored the same way, so we compare the packed top-left
+  quadrants, and the rectangle is centered: the first changed row and column
+  in the quadrant set all four edges.  Each row starts as a copy of a packed
+  row that is all transparent, and only pixels from quadrant bytes that differ
+  are written, in both mirrored positions.  Apart from the byte comparisons,
+  the work depends upon the number of changed pixels.
+*/
+  void packFrame(int index) throws IOException
   {
-    if (BlueRedWhite1.clipImage == null)
-      throw new IOException("no clipboard image created");
-    else if (flavor.equals(DataFlavor.imageFlavor))
-      return(BlueRedWhite1.clipImage);
+    BlueRedWhite1Quad before = quads[index - 1]; // previous frame
+    BlueRedWhite1Quad after = quads[index]; // this frame
+    byte[] beforeBits = before.getBits(); // packed top-left quadrants
+    byte[] afterBits = after.getBits();
+    int rowBytes = after.getRowBytes(); // bytes per quadrant row
+    int size = after.getSpec().getSize(); // width and height of full image
+    int half = size / 2;          // width and height of quadrant
+
+    boolean[] changed = new boolean[half]; // true if quadrant row changed
+    int firstColumn = half;       // leftmost changed pixel in quadrant
+    int firstRow = half;          // top changed row in quadrant
+    for (int k = 0; k < half; k ++)
+    {
+      int from = k * rowBytes;    // first byte of row in packed bits
+      for (int j = 0; j < rowBytes; j ++)
+      {
+        int diff = (beforeBits[from + j] ^ afterBits[from + j]) & 0xFF;
+        if (diff != 0)            // low bits are the leftmost pixels
+        {
+          changed[k] = true;
+          firstColumn = Math.min(firstColumn, ((j * 4)
+            + (Integer.numberOfTrailingZeros(diff) / 2)));
+          firstRow = Math.min(firstRow, k);
+          break;                  // later bytes can't be further left
+        }
+      }
+    }
+
+    if (firstRow >= half)         // no change: one transparent pixel
+    {
+      boxes[index] = new int[] { 0, 0, 1, 1 };
+      firstColumn = firstRow = 0;
+    }
     else
-      throw new UnsupportedFlavorException(flavor);
-  }
+    {
+      boxes[index] = new int[] { firstColumn, firstRow, (size - (2
+        * firstColumn)), (size - (2 * firstRow)) };
+    }
+    int width = boxes[index][2];  // pixels in each row of this frame
+    int height = boxes[index][3];
+
+    byte[] blank = new byte[1 + ((width + 1) / 2)]; // two pixels per byte
+    Arrays.fill(blank, (byte) ((UNCHANGED << 4) | UNCHANGED));
+    blank[0] = 0;                 // filter type: none
+    byte[] packed = new byte[blank.length]; // one row for compressor
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    java.util.zip.DeflaterOutputStream stream = new java.util.zip
+      .DeflaterOutputStream(bytes);
+    for (int y = firstRow; y < (firstRow + height); y ++)
+    {
+      int k = (y < half) ? y : (size - y - 1); // row in quadrant
+      boolean reverse = (y >= half); // same mirror rules as getRow()
+      System.arraycopy(blank, 0, packed, 0, blank.length);
+      for (int j = 0; changed[k] && (j < rowBytes); j ++)
+      {
+        int from = (k * rowBytes) + j; // byte in both packed quadrants
+        if (beforeBits[from] == afterBits[from])
+          continue;               // four pixels that didn't change
+        for (int i = j * 4; (i < ((j * 4) + 4)) && (i < half); i ++)
+        {
+          int color = (afterBits[from] >> ((i & 3) * 2)) & 3;
+          if (color == ((beforeBits[from] >> ((i & 3) * 2)) & 3))
+            continue;
+          int swap = BlueRedWhite1Quad.swapColor(color); // blue, red swap
+          setPixel(packed, (i - firstColumn), (reverse ? swap : color));
+          setPixel(packed, (size - i - 1 - firstColumn), (reverse ? color
+            : swap));
+        }
+      }
+      stream.write(packed);
+    }
+    stream.close();
+    frameData[index] = bytes.toByteArray();
 
-  public DataFlavor[] getTransferDataFlavors()
-  {
-    final DataFlavor[] result = { DataFlavor.imageFlavor };
-    return(result);
-  }
+  } // end of packFrame() method
 
-  public boolean isDataFlavorSupported(DataFlavor flavor)
+/*
+  setPixel() method
+
+  Change one pixel in a row packed at four bits per pixel (see packFrame).
+  The first byte is the filter type, so pixel <x> is in byte 1 + x/2.
+*/
+  static void setPixel(byte[] packed, int x, int color)
   {
-    return(flavor.equals(DataFlavor.imageFlavor));
+    int index = 1 + (x >> 1);     // two pixels per byte
+    if ((x & 1) == 0)             // left pixel is the high bits
+      packed[index] = (byte) ((packed[index] & 0x0F) | (color << 4));
+    else
+      packed[index] = (byte) ((packed[index] & 0xF0) | color);
   }
 
-  /* paint the display panel */
+/*
+  rangeName() method
 
-  protected void paintComponent(Graphics context)
+  Return text for a list of parameter values in a file name: the only value,
+  or the first and last values with a dash.
+*/
+  static String rangeName(int[] list)
   {
-    super.paintComponent(context); // anything base JPanel wants first
+    if (list.length == 1)
+      return(String.valueOf(list[0]));
+    return(list[0] + "-" + list[list.length - 1]);
+  }
 
-    int panelHeight = this.getHeight(); // height of this panel in pixels
-    int panelWidth = this.getWidth(); // width of this panel in pixels
+/*
+  run() method
 
-    /* There are two parts to drawing the icon.  First is to create the blue
-    and red stripes on a white background.  Second is to crop off the border
-    and rounded corners.
-
-    It would be nice if Java could use a rounded rectangle to clip the colored
-    stripes.  This may be quite complicated, if it's even possible.  A mask was
-    previously created from the fillRoundRect() method, but was not symmetrical
-    (and never has been).
-
-    What we do here is old school geometry: draw the stripes, calculate curves,
-    and replace cropped parts with a shade of gray.  While this is not the most
-    efficient method, it does get the job done with a reasonable effort. */
-
-    int iconSize = BlueRedWhite1.sizeSlider.getValue(); // user's option
-    iconSize -= iconSize % 2;     // basic design requires an even number
-    int iconSizeHalf = iconSize / 2; // half the size on left, half on right
-
-    /* Create an empty icon image with a white background. */
-
-    BufferedImage image = new BufferedImage(iconSize, iconSize,
-      BufferedImage.TYPE_INT_RGB);
-    Graphics2D imageContext = image.createGraphics();
-    imageContext.setColor(Color.WHITE);
-    imageContext.fillRect(0, 0, iconSize, iconSize);
-
-    /* Draw alternating blue and red stripes in the top-left quadrant.  This
-    quadrant will later be duplicated into the other three positions.  We use
-    an <offset> variable relative to the center. */
-
-    int redWidth = BlueRedWhite1.redSlider.getValue(); // one or more
-    redWidth = Math.max(1, redWidth); // infinite loop if red white both zero
-    int whiteWidth = BlueRedWhite1.whiteSlider.getValue(); // zero or more
-    whiteWidth -= whiteWidth % 2; // basic design requires an even number
-    int offset = whiteWidth / 2;  // may be zero, don't really care
-    boolean flipFlag = false;     // flips back and forth to alternate
-    while (offset < iconSizeHalf) // yes, spills over, gets cropped
-    {
-      imageContext.setColor(flipFlag ? OUR_RED : OUR_BLUE);
-      imageContext.fillRect(0, (iconSizeHalf - offset - redWidth),
-        (iconSizeHalf - offset), redWidth); // horizontal
-      imageContext.fillRect((iconSizeHalf - offset - redWidth), 0,
-        redWidth, (iconSizeHalf - offset)); // vertical
-
-      flipFlag = ! flipFlag;      // reverse colors next loop
-      offset += redWidth + whiteWidth; // where next stripe starts
-    }
-
-    /* Crop off the border and rounded corners, using a method that works even
-    if the corners are completely round or completely square.  Pixels are
-    within a rounded rectangle if the square of their distance from a center
-    point is within range.  Don't waste time calculating square roots here. */
-
-    int borderWidth = BlueRedWhite1.borderSlider.getValue(); // zero or more
-    borderWidth = Math.min(borderWidth, iconSizeHalf); // limit
-    int radius = (int) Math.round(BlueRedWhite1.curveSlider.getValue()
-      * (iconSizeHalf - borderWidth) / 100.0); // radius of circle
-    int center = borderWidth + radius; // center of circle for rounding
-    int square = (int) ((radius + 0.3) * (radius + 0.3)); // allow some fuzz
-    int rgbGray = OUR_GRAY.getRGB(); // background color as integer
-    for (int i = 0; i < iconSizeHalf; i ++)
-      for (int k = 0; k < iconSizeHalf; k ++)
-      {
-        if ((i < borderWidth) || (k < borderWidth))
-          image.setRGB(i, k, rgbGray); // always clear border
-        else if ((i >= center) || (k >= center))
-          { /* solid section, no curve */ }
-        else if ((((i - center) * (i - center))
-          + ((k - center) * (k - center))) > square)
+  Each thread takes the next frame in the current batch, and either renders it
+  or compresses it, until the batch is done.
+*/
+  public void run()
+  {
+    while (true)
+    {
+      int index;                  // frame number for this thread
+      synchronized (this)
+      {
+        if ((nextFrame >= lastFrame) || (failure != null))
+          return;
+        index = nextFrame ++;
+      }
+      if (packPhase == false)     // draw frame in compact form
+        quads[index] = BlueRedWhite1Batch.renderer.createQuad(specs[index]);
+      else
+      {
+        try { packFrame(index); }
+        catch (IOException ioe)
         {
-          image.setRGB(i, k, rgbGray); // outside the curve
+          synchronized (this) { failure = ioe; }
         }
       }
+    }
+  }
+
+/*
+  runAnimate() method
+
+  Write one animated PNG file for each icon size, with every combination of
+  the other parameter lists as frames, in the same order as exported PNG files
+  (red width changes fastest).  Return an exit status for the application.
+*/
+  static int runAnimate()
+  {
+    long total = BlueRedWhite1Batch.countCombinations(); // all frames
+    if (total > Integer.MAX_VALUE)
+    {
+      System.err.println("Too many frames (" + total + "), limit is "
+        + Integer.MAX_VALUE);
+      return(BlueRedWhite1.EXIT_FAILURE);
+    }
+    int[] sizeList = BlueRedWhite1Batch.sizeList; // one file per size
+    if (sizeList[sizeList.length - 1] > BlueRedWhite1Render.MAX_SIZE)
+    {
+      System.err.println("Sizes over " + BlueRedWhite1Render.MAX_SIZE
+        + " can't be written with -animate");
+      return(BlueRedWhite1.EXIT_FAILURE);
+    }
+    File folder = BlueRedWhite1Batch.outputFolder;
+    if ((folder.isDirectory() == false) && (folder.mkdirs() == false))
+    {
+      System.err.println("Can't create output folder: " + folder.getPath());
+      return(BlueRedWhite1.EXIT_FAILURE);
+    }
 
-    /* Mirror the top-left quadrant onto the other three positions.  Blue and
-    red are inverted for the top-right and bottom-left quadrants. */
+    long started = System.currentTimeMillis(); // for elapsed time
+    int failed = 0;               // number of files that couldn't be written
+    int frames = (int) (total / sizeList.length); // frames in each file
+    System.out.println("Exporting " + sizeList.length + " animations of "
+      + frames + " frames with " + BlueRedWhite1Batch.threadCount
+      + " threads to " + folder.getPath());
 
-    int rgbBlue = OUR_BLUE.getRGB(); // colors as combined integers
-    int rgbRed = OUR_RED.getRGB();
-    for (int i = 0; i < iconSizeHalf; i ++)
-      for (int k = 0; k < iconSizeHalf; k ++)
+    for (int s = 0; s < sizeList.length; s ++) // each size
+    {
+      BlueRedWhite1Spec[] specs = new BlueRedWhite1Spec[frames];
+      for (int i = 0; i < frames; i ++) // size is the slowest "digit"
+        specs[i] = BlueRedWhite1Batch.getSpec((s * frames) + i);
+      File file = new File(folder, ("brw-s" + sizeList[s] + "-b"
+        + rangeName(BlueRedWhite1Batch.borderList) + "-c"
+        + rangeName(BlueRedWhite1Batch.curveList) + "-w"
+        + rangeName(BlueRedWhite1Batch.whiteList) + "-r"
+        + rangeName(BlueRedWhite1Batch.redList) + "-anim.png"));
+      try
+      {
+        FileOutputStream stream = new FileOutputStream(file);
+        try { new BlueRedWhite1Anim(specs).writeFile(stream.getChannel()); }
+        finally { stream.close(); }
+        System.out.println("Wrote " + file.getPath() + " (" + file.length()
+          + " bytes)");
+      }
+      catch (IOException ioe)
       {
-        int color = image.getRGB(i, k); // original from top-left
-        int invert = color;       // correct for gray and white
-        if (color == rgbBlue)     // must invert blue and red
-          invert = rgbRed;
-        else if (color == rgbRed)
-          invert = rgbBlue;
-        image.setRGB((iconSize - i - 1), k, invert); // top-right
-        image.setRGB(i, (iconSize - k - 1), invert); // bottom-left
-        image.setRGB((iconSize - i - 1), (iconSize - k - 1), color);
-                                  // bottom-right quadrant
+        System.err.println("Can't write file " + file.getPath() + ": "
+          + ioe.getMessage());
+        failed ++;
       }
+    }
 
-    /* Put our icon image onto the user's display.  Save the image in case we
-    want it later for the system clipboard. */
+    System.out.println("Finished in " + ((System.currentTimeMillis()
+      - started) / 1000.0) + " seconds" + ((failed > 0) ? (", " + failed
+      + " failed") : ""));
+    return((failed > 0) ? BlueRedWhite1.EXIT_FAILURE
+      : BlueRedWhite1.EXIT_SUCCESS);
 
-    int centerHeight = panelHeight / 2; // middle of the icon (from panel top)
-    int centerWidth = panelWidth / 2; // middle from panel left
-    int zoomSize = iconSize * BlueRedWhite1.zoomSlider.getValue();
-    int zoomSizeHalf = zoomSize / 2; // need to center image
-    context.drawImage(image, (centerWidth - zoomSizeHalf),
-      (centerHeight - zoomSizeHalf), zoomSize, zoomSize, null, null);
+  } // end of runAnimate() method
 
-    context.setColor(Color.GRAY); // thin gray border around icon
-    context.drawRect((centerWidth - zoomSizeHalf - 1),
-      (centerHeight - zoomSizeHalf - 1), (zoomSize + 1), (zoomSize + 1));
+/*
+  runPhase() method
+
+  Render or compress frames <first> to <last> - 1 with all of our threads, and
+  wait for them to finish.
+*/
+  void runPhase(boolean pack, int first, int last)
+  {
+    nextFrame = first;
+    lastFrame = last;
+    packPhase = pack;
+    int count = Math.min(BlueRedWhite1Batch.threadCount, (last - first));
+    Thread[] threads = new Thread[count];
+    for (int i = 0; i < count; i ++)
+    {
+      threads[i] = new Thread(this);
+      threads[i].start();
+    }
+    for (int i = 0; i < count; i ++)
+    {
+      try { threads[i].join(); }
+      catch (InterruptedException ie) { /* not expected, ignore */ }
+    }
+  }
 
-    BlueRedWhite1.clipImage = image; // save for clipboard, if requested
+/*
+  writeControl() method
 
-  } // end of paintComponent() method
+  Write a frame control chunk (fcTL) for a rectangle in <box>.  The frame is
+  never cleared afterwards; <blend> is zero to replace pixels, or one to draw
+  over them, so transparent pixels keep the previous frame.
+*/
+  void writeControl(BlueRedWhite1Png writer, int sequence, int[] box,
+    int blend) throws IOException
+  {
+    java.nio.ByteBuffer control = java.nio.ByteBuffer.allocate(26);
+    control.putInt(sequence);
+    control.putInt(box[2]);       // width
+    control.putInt(box[3]);       // height
+    control.putInt(box[0]);       // x offset
+    control.putInt(box[1]);       // y offset
+    control.putShort((short) frameMillis); // delay numerator
+    control.putShort((short) 1000); // delay denominator: milliseconds
+    control.put((byte) 0);        // dispose: leave frame as it is
+    control.put((byte) blend);
+    writer.writeChunk("fcTL", control.array(), 26);
+  }
 
-} // end of BlueRedWhite1Grid class
+/*
+  writeFile() method
+
+  Write all frames as one animated PNG file that repeats forever.  The first
+  frame is the default image, written in IDAT chunks as rows are created.
+  Later frames are done in batches: render a few frames at once, compress
+  their changes at once, write them in order, and then forget all but the last
+  frame, which the next batch compares against.  The channel is not closed.
+*/
+  void writeFile(java.nio.channels.WritableByteChannel channel)
+    throws IOException
+  {
+    int batch = 2 * BlueRedWhite1Batch.threadCount; // frames held at once
+    int size = specs[0].getSize(); // all frames have the same size
+    BlueRedWhite1Png writer = new BlueRedWhite1Png(channel, size, size, 4);
+
+    java.nio.ByteBuffer header = java.nio.ByteBuffer.allocate(8);
+    header.putInt(specs.length);  // number of frames
+    header.putInt(0);             // number of plays: forever
+    writer.writeChunk("acTL", header.array(), 8);
+
+    int sequence = 0;             // numbers fcTL and fdAT chunks in order
+    for (int first = 0; first < specs.length; first += batch)
+    {
+      int last = Math.min(specs.length, (first + batch));
+      runPhase(false, first, last); // render frames
+      runPhase(true, Math.max(1, first), last); // compress changes
+      if (failure != null)
+        throw failure;
+
+      for (int i = first; i < last; i ++)
+      {
+        if (i == 0)               // default image: full size, normal PNG
+        {
+          writeControl(writer, sequence ++, new int[] { 0, 0, size, size },
+            0);
+          byte[] row = new byte[size]; // color indexes for one row
+          for (int y = 0; y < size; y ++)
+          {
+            quads[0].getRow(y, row, 0);
+            writer.writeRow(row, 0);
+          }
+          writer.finishData();
+        }
+        else                      // changes only, drawn over last frame
+        {
+          writeControl(writer, sequence ++, boxes[i], 1);
+          byte[] data = new byte[frameData[i].length + 4];
+          java.nio.ByteBuffer.wrap(data).putInt(sequence ++);
+          System.arraycopy(frameData[i], 0, data, 4, frameData[i].length);
+          writer.writeChunk("fdAT", data, data.length);
+          frameData[i] = null;    // written, no longer needed
+        }
+      }
+      for (int i = first; i < (last - 1); i ++) // keep only the last frame
+        quads[i] = null;
+    }
+    writer.writeChunk("IEND", new byte[0], 0);
+
+  } // end of writeFile() method
+
+} // end of BlueRedWhite1Anim class
 
 // ------------------------------------------------------------------------- //
 
 /*
-  BlueRedWhite1User class
-
-  This class listens to input from the user: menu items and sliders.
+  BlueRedWhite1Batch class
+
+  This class exports a range of icon images as PNG files, without a window.
+  Every combination of the parameter lists is rendered.  Several threads each
+  write whole files, one band of rows at a time, with our own PNG writer, so
+  memory use stays flat no matter how many files are written or how big they
+  are.  The command-line options are also parsed here, so that a headless job
+  never loads the GUI classes.
 */
 
-class BlueRedWhite1User implements ActionListener, ChangeListener
+class BlueRedWhite1Batch implements Runnable
 {
+  /* constants */
+
+  static final int CACHE_BYTES = 16 * 1024 * 1024; // renderer cache (bytes)
+
+  /* class variables */
+
+  static int[] borderList = { 8 }; // parameter values, same defaults as GUI
+  static int[] curveList = { 70 };
+  static int[] redList = { 18 };
+  static int[] sizeList = { 256 };
+  static int[] whiteList = { 12 };
+
+  static int failCount;           // number of files that couldn't be written
+  static int nextIndex;           // next combination to be rendered
+  static File outputFolder = new File("."); // where to write PNG files
+  static int threadCount = Runtime.getRuntime().availableProcessors();
+  static int totalCount;          // total number of combinations
+  static int writeCount;          // number of files written
+
+  static final BlueRedWhite1Render renderer = new BlueRedWhite1Render(
+    CACHE_BYTES);                 // one renderer for this whole program
+
   /* empty constructor */
 
-  public BlueRedWhite1User() { }
+  public BlueRedWhite1Batch() { }
 
-  /* action listener for menu items */
+/*
+  countCombinations() method
 
-  public void actionPerformed(ActionEvent event)
+  Return the number of combinations of all parameter lists, as a long integer
+  so that a product that doesn't fit in an int can be detected and refused.
+*/
+  static long countCombinations()
   {
-    Object source = event.getSource(); // where the event came from
-    if (source == BlueRedWhite1.menuCopy) // "Copy Image" menu item
+    return(((long) borderList.length) * curveList.length * redList.length
+      * sizeList.length * whiteList.length);
+  }
+
+/*
+  evenRange() method
+
+  Icon sizes and white widths must be even numbers.  Round down each number in
+  a list, and remove duplicates, so we don't render the same image twice.
+*/
+  static int[] evenRange(int[] range)
+  {
+    if (range == null)            // pass along errors from parseRange()
+      return(null);
+    int count = 0;                // number of unique even numbers
+    int[] result = new int[range.length];
+    for (int i = 0; i < range.length; i ++)
+    {
+      int value = range[i] - (range[i] % 2); // round down to even number
+      if ((count == 0) || (result[count - 1] != value))
+        result[count ++] = value; // ranges are sorted, duplicates adjacent
+    }
+    int[] trimmed = new int[count];
+    System.arraycopy(result, 0, trimmed, 0, count);
+    return(trimmed);
+  }
+
+/*
+  getSpec() method
+
+  Return the parameters for one combination, numbered from zero to one less
+  than <totalCount>.  Think of the lists as digits in a mixed-radix number.
+*/
+  static BlueRedWhite1Spec getSpec(int index)
+  {
+    int red = redList[index % redList.length];
+    index /= redList.length;
+    int white = whiteList[index % whiteList.length];
+    index /= whiteList.length;
+    int curve = curveList[index % curveList.length];
+    index /= curveList.length;
+    int border = borderList[index % borderList.length];
+    index /= borderList.length;
+    int size = sizeList[index];
+    return(new BlueRedWhite1Spec(size, border, curve, white, red));
+  }
+
+/*
+  main() method
+
+  Command-line options select a range of icon images to export as PNG files,
+  or one of the other jobs that don't need a window (benchmark, icon file, HTTP
+  server).  This is called by BlueRedWhite1.main() when there are options, and
+  may also be run directly as "java BlueRedWhite1Batch [options]".  Nothing
+  here creates Swing or AWT components, so the Java run-time starts quickly in
+  scripts and containers without a display.  Files are written by our own PNG
+  encoder, without BufferedImage objects, except that -benchmark times the
+  GUI's mirror and drawing stages on off-screen AWT images (headless).
+*/
+  public static void main(String[] args)
+  {
+    if (System.getProperty("java.awt.headless") == null) // no display needed
+      System.setProperty("java.awt.headless", "true");
+
+    boolean benchFlag = false;    // true if we only measure speed
+    boolean checkFlag = false;    // true if we check drawing code
+    int exitStatus;               // from whichever job we run
+    for (int i = 0; i < args.length; i ++)
     {
-      try                         // clipboard may not be available
+      String word = args[i].toLowerCase(); // easier if consistent
+      int[] range = null;         // list of numbers from this option
+
+      if (word.equals("?") || word.equals("-?") || word.equals("/?")
+        || word.equals("-h") || word.equals("/h")
+        || word.equals("-help") || word.equals("/help"))
+      {
+        BlueRedWhite1.showHelp(); // show help summary
+        System.exit(BlueRedWhite1.EXIT_SUCCESS); // exit after printing help
+      }
+      else if (word.equals("-animate") || word.equals("/animate"))
+      {
+        BlueRedWhite1Anim.frameMillis = BlueRedWhite1Anim.DEFAULT_MILLIS;
+        range = new int[0];       // not a range, but option is accepted
+      }
+      else if (word.startsWith("-animate=") || word.startsWith("/animate="))
+      {
+        range = parseRange(word.substring(9), 10, 30000);
+        if ((range != null) && (range.length == 1))
+          BlueRedWhite1Anim.frameMillis = range[0];
+        else
+          range = null;           // only one number allowed here
+      }
+      else if (word.equals("-benchmark") || word.equals("/benchmark"))
+      {
+        benchFlag = true;         // measure speed instead of writing files
+        range = new int[0];       // not a range, but option is accepted
+      }
+      else if (word.startsWith("-benchmark=")
+        || word.startsWith("/benchmark="))
+      {
+        range = parseRange(word.substring(11), 10, 99999);
+        if ((range != null) && (range.length == 1))
+        {
+          benchFlag = true;
+          BlueRedWhite1Bench.measureMillis = range[0];
+        }
+        else
+          range = null;           // only one number allowed here
+      }
+      else if (word.startsWith("-border=") || word.startsWith("/border="))
+      {
+        range = parseRange(word.substring(8), 0, 99);
+        borderList = range;
+      }
+      else if (word.startsWith("-curve=") || word.startsWith("/curve="))
+      {
+        range = parseRange(word.substring(7), 0, 99);
+        curveList = range;
+      }
+      else if (word.startsWith("-icon=") || word.startsWith("/icon="))
+      {
+        BlueRedWhite1Icon.iconFile = new File(args[i].substring(6));
+        range = new int[0];       // not a range, but option is accepted
+      }
+      else if (word.startsWith("-output=") || word.startsWith("/output="))
+      {
+        outputFolder = new File(args[i].substring(8));
+        range = new int[0];       // not a range, but option is accepted
+      }
+      else if (word.startsWith("-red=") || word.startsWith("/red="))
+      {
+        range = parseRange(word.substring(5), 1, 99);
+        redList = range;
+      }
+      else if (word.startsWith("-serve=") || word.startsWith("/serve="))
+      {
+        range = parseRange(word.substring(7), 1, 65535);
+        if ((range != null) && (range.length == 1))
+          BlueRedWhite1Server.serverPort = range[0];
+        else
+          range = null;           // only one number allowed here
+      }
+      else if (word.startsWith("-size=") || word.startsWith("/size="))
+      {
+        range = parseRange(word.substring(6), 16,
+          BlueRedWhite1Png.STREAM_MAX_SIZE);
+        sizeList = evenRange(range);
+        if (sizeList != null)     // also limits sizes for -validate
+          BlueRedWhite1Check.sizeList = sizeList;
+      }
+      else if (word.equals("-svg") || word.equals("/svg"))
       {
-        Toolkit.getDefaultToolkit().getSystemClipboard().setContents(
-          BlueRedWhite1.outputCanvas, null); // place notice on clipboard
+        BlueRedWhite1Svg.svgMode = 1; // vector SVG files instead of PNG
+        range = new int[0];       // not a range, but option is accepted
       }
-      catch (IllegalStateException ise)
+      else if (word.equals("-svg=pixels") || word.equals("/svg=pixels"))
       {
-        JOptionPane.showMessageDialog(BlueRedWhite1.mainFrame,
-          ("Can't put image on clipboard:\n" + ise.getMessage()));
+        BlueRedWhite1Svg.svgMode = 2; // SVG that matches pixels exactly
+        range = new int[0];       // not a range, but option is accepted
+      }
+      else if (word.startsWith("-threads=")
+        || word.startsWith("/threads="))
+      {
+        range = parseRange(word.substring(9), 1, 99);
+        if ((range != null) && (range.length == 1))
+          threadCount = range[0];
+        else
+          range = null;           // only one number allowed here
+      }
+      else if (word.equals("-validate") || word.equals("/validate"))
+      {
+        checkFlag = true;         // check drawing code, write no files
+        range = new int[0];       // not a range, but option is accepted
+      }
+      else if (word.startsWith("-validate=")
+        || word.startsWith("/validate="))
+      {
+        checkFlag = true;
+        BlueRedWhite1Check.goldenFile = new File(args[i].substring(10));
+        range = new int[0];       // not a range, but option is accepted
+      }
+      else if (word.startsWith("-validate-write=")
+        || word.startsWith("/validate-write="))
+      {
+        checkFlag = true;
+        BlueRedWhite1Check.goldenFile = new File(args[i].substring(16));
+        BlueRedWhite1Check.writeGolden = true; // replace, don't compare
+        range = new int[0];       // not a range, but option is accepted
+      }
+      else if (word.startsWith("-white=") || word.startsWith("/white="))
+      {
+        range = parseRange(word.substring(7), 0, 99);
+        whiteList = evenRange(range);
+      }
+
+      if (range == null)          // option not recognized or bad number
+      {
+        System.err.println("Option not recognized: " + args[i]);
+        BlueRedWhite1.showHelp(); // show help summary
+        System.exit(BlueRedWhite1.EXIT_FAILURE); // exit after printing help
       }
     }
-    else if (source == BlueRedWhite1.menuExit) // "Exit (Close)" menu item
+
+    if (benchFlag)                // measure speed of each stage
+      exitStatus = BlueRedWhite1Bench.runBench();
+    else if (checkFlag)           // check drawing code over all parameters
+      exitStatus = BlueRedWhite1Check.runCheck();
+    else if (BlueRedWhite1Server.serverPort > 0) // answer HTTP requests
+      exitStatus = BlueRedWhite1Server.runServer();
+    else if (BlueRedWhite1Icon.iconFile != null) // write one icon file
+      exitStatus = runIcon(BlueRedWhite1Icon.iconFile);
+    else if (BlueRedWhite1Anim.frameMillis > 0) // one animation per size
+      exitStatus = BlueRedWhite1Anim.runAnimate();
+    else                          // render and write files
+      exitStatus = runBatch();
+    System.exit(exitStatus);      // exit from application with status
+
+  } // end of main() method
+
+/*
+  nextSpec() method
+
+  Return the parameters for the next combination to be rendered, or null when
+  there are no more.  Called by all rendering threads.
+*/
+  static synchronized BlueRedWhite1Spec nextSpec()
+  {
+    if (nextIndex >= totalCount)
+      return(null);
+    return(getSpec(nextIndex ++));
+  }
+
+/*
+  parseRange() method
+
+  Parse a number, or a range of numbers ("16-512"), or a range with a step size
+  ("16-512/16").  Return a sorted list of numbers, or null if the text isn't
+  correct or the numbers are outside the given limits.
+*/
+  static int[] parseRange(String text, int lowest, int highest)
+  {
+    int first, last, step;        // numbers found in text
+    try
     {
-      System.exit(0);             // immediate exit from GUI with no status
+      int slash = text.indexOf('/'); // optional step size
+      step = (slash < 0) ? 1 : Integer.parseInt(text.substring(slash + 1));
+      String both = (slash < 0) ? text : text.substring(0, slash);
+      int dash = both.indexOf('-'); // optional end of range
+      first = Integer.parseInt((dash < 0) ? both : both.substring(0, dash));
+      last = (dash < 0) ? first : Integer.parseInt(both.substring(dash + 1));
     }
-    else                          // fault in program logic, not by user
+    catch (NumberFormatException nfe) { return(null); }
+
+    if ((first < lowest) || (last > highest) || (first > last) || (step < 1))
+      return(null);
+    int[] result = new int[((last - first) / step) + 1];
+    for (int i = 0; i < result.length; i ++)
+      result[i] = first + (i * step);
+    return(result);
+  }
+
+/*
+  run() method
+
+  Each thread takes the next combination, and writes its PNG file one band of
+  rows at a time (see BlueRedWhite1Png), until all combinations are done.  No
+  full image is ever created, so memory use stays flat for any icon size.
+*/
+  public void run()
+  {
+    BlueRedWhite1Spec spec;       // parameters for next image
+    while ((spec = nextSpec()) != null)
     {
-      System.err.println("Error in actionPerformed(): unknown ActionEvent: "
-        + event);                 // should never happen, so write on console
+      File file = new File(outputFolder, (spec.getFileName()
+        + ((BlueRedWhite1Svg.svgMode > 0) ? ".svg" : ".png")));
+      try
+      {
+        if (BlueRedWhite1Svg.svgMode > 0) // vector or pixel SVG file
+          BlueRedWhite1Svg.writeSvg(spec, (BlueRedWhite1Svg.svgMode == 2),
+            file);
+        else                      // PNG file, written as rows are created
+        {
+          FileOutputStream stream = new FileOutputStream(file);
+          try { BlueRedWhite1Png.writeIcon(spec, stream.getChannel()); }
+          finally { stream.close(); }
+        }
+        synchronized (BlueRedWhite1Batch.class) { writeCount ++; }
+      }
+      catch (IOException ioe)
+      {
+        System.err.println("Can't write file " + file.getPath() + ": "
+          + ioe.getMessage());
+        synchronized (BlueRedWhite1Batch.class) { failCount ++; }
+      }
     }
-  } // end of actionPerformed() method
+  } // end of run() method
 
-  /* change listener for sliders */
+/*
+  runBatch() method
 
-  public void stateChanged(ChangeEvent event)
+  Render and write all combinations of the parameter lists.  Return an exit
+  status for the application.
+*/
+  static int runBatch()
   {
-    Object source = event.getSource(); // where the event came from
-    if (source == BlueRedWhite1.borderSlider)
+    long count = countCombinations(); // may be too many for an int
+    if (count > Integer.MAX_VALUE)
     {
-      BlueRedWhite1.borderValue.setText(String.valueOf(BlueRedWhite1
-        .borderSlider.getValue()));
-      BlueRedWhite1.outputCanvas.repaint();
+      System.err.println("Too many combinations (" + count + "), limit is "
+        + Integer.MAX_VALUE);
+      return(BlueRedWhite1.EXIT_FAILURE);
     }
-    else if (source == BlueRedWhite1.curveSlider)
+    if ((BlueRedWhite1Svg.svgMode == 2) && (sizeList[sizeList.length - 1]
+      > BlueRedWhite1Render.MAX_SIZE))
     {
-      BlueRedWhite1.curveValue.setText(String.valueOf(BlueRedWhite1
-        .curveSlider.getValue()));
-      BlueRedWhite1.outputCanvas.repaint();
+      System.err.println("Sizes over " + BlueRedWhite1Render.MAX_SIZE
+        + " can't be written with -svg=pixels");
+      return(BlueRedWhite1.EXIT_FAILURE);
     }
-    else if (source == BlueRedWhite1.redSlider)
+    if ((outputFolder.isDirectory() == false) && (outputFolder.mkdirs()
+      == false))
     {
-      BlueRedWhite1.redValue.setText(String.valueOf(BlueRedWhite1
-        .redSlider.getValue()));
-      BlueRedWhite1.outputCanvas.repaint();
+      System.err.println("Can't create output folder: "
+        + outputFolder.getPath());
+      return(BlueRedWhite1.EXIT_FAILURE);
+    }
+
+    long started = System.currentTimeMillis(); // for elapsed time
+    failCount = nextIndex = writeCount = 0;
+    totalCount = (int) count;
+    System.out.println("Exporting " + totalCount + " images with "
+      + threadCount + " threads to " + outputFolder.getPath());
+
+    Thread[] threads = new Thread[threadCount]; // create and write PNG
+    for (int i = 0; i < threadCount; i ++)
+    {
+      threads[i] = new Thread(new BlueRedWhite1Batch());
+      threads[i].start();
+    }
+    for (int i = 0; i < threadCount; i ++) // wait for all files
+    {
+      try { threads[i].join(); }
+      catch (InterruptedException ie) { /* not expected, ignore */ }
+    }
+
+    System.out.println("Wrote " + writeCount + " files in "
+      + ((System.currentTimeMillis() - started) / 1000.0) + " seconds"
+      + ((failCount > 0) ? (", " + failCount + " failed") : ""));
+    return((failCount > 0) ? BlueRedWhite1.EXIT_FAILURE
+      : BlueRedWhite1.EXIT_SUCCESS);
+
+  } // end of runBatch() method
+
+/*
+  runIcon() method
+
+  Write one icon file with all standard sizes, from a single set of parameter
+  values.  The size given is the one that border and line widths refer to.
+  Return an exit status for the application.
+*/
+  static int runIcon(File file)
+  {
+    if (countCombinations() != 1)
+    {
+      System.err.println("Only one value for each option with -icon");
+      return(BlueRedWhite1.EXIT_FAILURE);
+    }
+    try
+    {
+      BlueRedWhite1Icon.writeIconFile(file, getSpec(0));
+      System.out.println("Wrote icon file " + file.getPath());
+      return(BlueRedWhite1.EXIT_SUCCESS);
+    }
+    catch (IOException ioe)
+    {
+      System.err.println("Can't write icon file " + file.getPath() + ": "
+        + ioe.getMessage());
+      return(BlueRedWhite1.EXIT_FAILURE);
+    }
+  } // end of runIcon() method
+
+} // end of BlueRedWhite1Batch class
+
+// ------------------------------------------------------------------------- //
+
+/*
+  BlueRedWhite1Bench class
+
+  This class measures how long each stage of creating and drawing an icon
+  takes: filling stripes, packing them into compact form, finding the cropped
+  corners, combining stripes with the crop mask, mirroring quadrants into a
+  full image, and the zoomed copy to a screen-sized image.  Each stage is
+  repeated for a fixed time over a table of sizes, white widths, and corner
+  curves.  Results are printed as comma-separated values (CSV), so that
+  changes to the rendering code can be compared with actual numbers.  The last
+  two stages need AWT images, drawn off-screen, but nothing here loads Swing.
+
+  Memory allocation per operation is reported if the Java run-time supports
+  counting allocated bytes per thread (Sun/Oracle and OpenJDK do).
+*/
+
+class BlueRedWhite1Bench
+{
+  /* constants */
+
+  static final int[] CURVE_LIST = { 0, 33, 66, 99 }; // corner curve (percent)
+  static final String[] STAGE_NAMES = BlueRedWhite1Stats.STAGE_NAMES;
+  static final int[] SIZE_LIST = { 16, 32, 64, 128, 256, 512 }; // icon sizes
+  static final int VIEW_HEIGHT = 600; // size of pretend window for drawing
+  static final int VIEW_WIDTH = 800;
+  static final int[] WHITE_LIST = { 0, 12, 48, 98 }; // white widths (pixels)
+  static final int ZOOM = 4;      // zoom factor for drawing stage
+
+  /* class variables */
+
+  static volatile long checksum;  // results folded together (see runBench)
+  static int measureMillis = 200; // milliseconds to measure each test
+
+  /* empty constructor */
+
+  private BlueRedWhite1Bench() { }
+
+/*
+  allocatedBytes() method
+
+  Return the number of bytes allocated so far by the current thread, or -1 if
+  the Java run-time can't tell us.
+*/
+  static long allocatedBytes()
+  {
+    try
+    {
+      java.lang.management.ThreadMXBean bean = java.lang.management
+        .ManagementFactory.getThreadMXBean();
+      if (bean instanceof com.sun.management.ThreadMXBean)
+        return(((com.sun.management.ThreadMXBean) bean)
+          .getThreadAllocatedBytes(Thread.currentThread().getId()));
+    }
+    catch (Throwable t) { /* not available, fall through */ }
+    return(-1);
+  }
+
+/*
+  runBench() method
+
+  Measure all stages for all combinations in our tables, and print the results.
+  Return an exit status for the application.
+
+  A result that is never used could be thrown away by the just-in-time
+  compiler, along with the work that made it, so each result is folded into a
+  checksum: a few array elements, or the identity hash of a new object, which
+  forces the object to exist.  The checksum is kept in a volatile field and
+  printed at the end.  Drawing changes <view>, which we keep until the end.
+*/
+  static int runBench()
+  {
+    BufferedImage view = new BufferedImage(VIEW_WIDTH, VIEW_HEIGHT,
+      BufferedImage.TYPE_INT_RGB); // pretend window for drawing stage
+    Graphics2D viewContext = view.createGraphics();
+
+    System.out.println("stage,size,white,curve,ops_per_sec,bytes_per_op");
+    for (int a = 0; a < SIZE_LIST.length; a ++)
+      for (int b = 0; b < WHITE_LIST.length; b ++)
+        for (int c = 0; c < CURVE_LIST.length; c ++)
+        {
+          BlueRedWhite1Spec spec = new BlueRedWhite1Spec(SIZE_LIST[a], 8,
+            CURVE_LIST[c], WHITE_LIST[b], 18);
+          int half = spec.getSize() / 2; // width and height of quadrant
+          byte[] quadrant = new byte[half * half];
+          BlueRedWhite1Render.fillStripes(quadrant, spec);
+          byte[] stripes = BlueRedWhite1Quad.packBits(spec, quadrant);
+          int[] spans = BlueRedWhite1Render.cropSpans(spec);
+          BlueRedWhite1Quad quad = BlueRedWhite1Quad.combine(spec, stripes,
+            spans);
+          BufferedImage image = quad.toImage();
+
+          for (int stage = 0; stage < STAGE_NAMES.length; stage ++)
+          {
+            long count = 0;       // number of times stage was run
+            long bytes = -1;      // bytes allocated, if known
+            long elapsed = 0;     // nanoseconds
+            for (int pass = 0; pass < 2; pass ++) // warm up, then measure
+            {
+              long limit = (pass == 0) ? (measureMillis / 4) : measureMillis;
+              long startBytes = allocatedBytes();
+              long startTime = System.nanoTime();
+              long stopTime = startTime + (limit * 1000000L);
+              long sum = 0;       // folded results from this pass
+              count = 0;
+              do
+              {
+                for (int i = 0; i < 16; i ++) // check clock less often
+                {
+                  switch (stage)
+                  {
+                    case (0):
+                      BlueRedWhite1Render.fillStripes(quadrant, spec);
+                      sum += quadrant[quadrant.length - 1 - i];
+                      break;
+                    case (1):
+                      byte[] packed = BlueRedWhite1Quad.packBits(spec,
+                        quadrant);
+                      sum += packed.length + packed[packed.length - 1];
+                      break;
+                    case (2):
+                      int[] crop = BlueRedWhite1Render.cropSpans(spec);
+                      sum += crop.length + crop[crop.length - 1];
+                      break;
+                    case (3):
+                      sum += System.identityHashCode(BlueRedWhite1Quad
+                        .combine(spec, stripes, spans));
+                      break;
+                    case (4):
+                      sum += System.identityHashCode(quad.toImage());
+                      break;
+                    default:
+                      BlueRedWhite1View.drawIcon(viewContext, image,
+                        spec.getSize(), ZOOM, VIEW_WIDTH, VIEW_HEIGHT);
+                      break;
+                  }
+                }
+                count += 16;
+                elapsed = System.nanoTime() - startTime;
+              } while (elapsed < (stopTime - startTime));
+              checksum += sum;    // volatile, so the work must be done
+              long endBytes = allocatedBytes();
+              bytes = ((startBytes < 0) || (endBytes < 0)) ? -1
+                : (endBytes - startBytes);
+            }
+            System.out.println(STAGE_NAMES[stage] + "," + spec.getSize() + ","
+              + spec.getWhite() + "," + spec.getCurve() + ","
+              + Math.round(count * 1e9 / elapsed) + ","
+              + ((bytes < 0) ? "n/a" : String.valueOf(bytes / count)));
+          }
+        }
+    viewContext.dispose();
+    System.err.println("Checksum of results: " + Long.toHexString(checksum
+      + view.getRGB((VIEW_WIDTH / 2), (VIEW_HEIGHT / 2))));
+    return(BlueRedWhite1.EXIT_SUCCESS);
+
+  } // end of runBench() method
+
+} // end of BlueRedWhite1Bench class
+
+// ------------------------------------------------------------------------- //
+
+/*
+  BlueRedWhite1Check class
+
+  This class checks the drawing code against the original rules over the whole
+  range of slider values: size 16 to 512, border 0 to 99, curve 0 to 99, white
+  0 to 99, and red 1 to 99.  That's over twelve billion icons, far too many to
+  draw one by one, so we use the same two layers as the renderer (see
+  BlueRedWhite1Render).  Every stripe layer (size, white, red) is compared with
+  the original method of filling rectangles, and every crop mask (size, border,
+  curve) is compared with the original test for each pixel.  Then a sample of
+  full icons, rotating through all curves, borders, and stripe layers, is
+  checked pixel by pixel and for four-way symmetry with blue and red inverted,
+  using both ways that full rows are created (GUI images and PNG files).
+
+  Each icon size is a separate shard, run in parallel by several threads.  A
+  CRC32 checksum of every layer and sampled row is kept for each size, and no
+  images are kept.  The checksums may be compared with a golden file written by
+  an earlier run (-validate-write), so that any change to the drawing code that
+  changes even one pixel is found, even if it still passes the other checks.
+  The file for the current code is "BlueRedWhite1-golden.csv" (sizes 16 to
+  512).
+*/
+
+class BlueRedWhite1Check implements Runnable
+{
+  /* constants */
+
+  static final int MAX_ERRORS = 20; // stop reporting after this many errors
+  static final int SAMPLE_COUNT = 100; // full icons checked per size
+
+  /* class variables */
+
+  static int errorCount;          // number of errors found so far
+  static String[] results;        // checksum line for each shard, or null
+  static int nextShard;           // next shard (size) to be checked
+  static int[] sizeList = BlueRedWhite1Batch.evenRange(BlueRedWhite1Batch
+    .parseRange("16-512", 16, 512)); // sizes to check, one shard each
+  static File goldenFile = null;  // checksums from earlier run, if any
+  static boolean writeGolden = false; // true to write <goldenFile> instead
+
+  /* empty constructor */
+
+  public BlueRedWhite1Check() { }
+
+/*
+  checkShard() method
+
+  Check all layers and sample icons for one size, and return a line with the
+  checksums.  Errors are reported as they are found.
+*/
+  static String checkShard(int size)
+  {
+    int half = size / 2;          // width and height of quadrant
+    byte[] actual = new byte[half * half]; // from the drawing code
+    byte[] expected = new byte[half * half]; // from the original rules
+    byte[] spanBytes = new byte[half * 4]; // crop spans for checksum
+    java.util.zip.CRC32 imageSum = new java.util.zip.CRC32();
+    java.util.zip.CRC32 maskSum = new java.util.zip.CRC32();
+    java.util.zip.CRC32 stripeSum = new java.util.zip.CRC32();
+
+    /* Every stripe layer.  White widths are even (see BlueRedWhite1Spec). */
+
+    for (int white = 0; white < 100; white += 2)
+      for (int red = 1; red < 100; red ++)
+      {
+        BlueRedWhite1Spec spec = new BlueRedWhite1Spec(size, 0, 0, white, red);
+        BlueRedWhite1Render.fillStripes(actual, spec);
+        referenceStripes(expected, spec);
+        if (Arrays.equals(actual, expected) == false)
+          reportError(spec, "stripes differ from rectangles");
+        stripeSum.update(BlueRedWhite1Quad.packBits(spec, actual));
+      }
+
+    /* Every crop mask.  For one row, the original test marks a gray span at
+    the start of the row and nothing after it, because the distance to the
+    center only gets smaller going right.  So checking the pixels on both
+    sides of where the span ends is the same as checking every pixel. */
+
+    for (int border = 0; border < 100; border ++)
+      for (int curve = 0; curve < 100; curve ++)
+      {
+        BlueRedWhite1Spec spec = new BlueRedWhite1Spec(size, border, curve, 0,
+          1);
+        int[] spans = BlueRedWhite1Render.cropSpans(spec);
+        for (int k = 0; k < half; k ++) // each row (y coordinate)
+        {
+          int span = spans[k];    // gray pixels at start of row
+          if ((span < 0) || (span > half)
+            || ((span > 0) && (referenceCrop(spec, (span - 1), k) == false))
+            || ((span < half) && referenceCrop(spec, span, k)))
+          {
+            reportError(spec, ("crop span wrong in row " + k));
+            break;
+          }
+          spanBytes[(k * 4)] = (byte) (span >> 24);
+          spanBytes[(k * 4) + 1] = (byte) (span >> 16);
+          spanBytes[(k * 4) + 2] = (byte) (span >> 8);
+          spanBytes[(k * 4) + 3] = (byte) span;
+        }
+        maskSum.update(spanBytes);
+      }
+
+    /* A sample of full icons.  Curves go in order, while borders and stripe
+    layers rotate with different steps, so across all sizes most pairs of
+    border and curve are seen, and every stripe layer is combined with many
+    different masks. */
+
+    byte[] top = new byte[size];  // row from PNG method (fillFullRow)
+    byte[] bottom = new byte[size]; // matching row in bottom half
+    byte[] topQuad = new byte[size]; // same rows from compact icon
+    byte[] bottomQuad = new byte[size];
+    for (int sample = 0; sample < SAMPLE_COUNT; sample ++)
+    {
+      int layer = ((sample * 53) + (size * 7)) % 4950; // white, red pair
+      BlueRedWhite1Spec spec = new BlueRedWhite1Spec(size, (((sample * 37)
+        + size) % 100), sample, (2 * (layer / 99)), (1 + (layer % 99)));
+      if (new BlueRedWhite1Spec((size + 1), spec.getBorder(), spec.getCurve(),
+        (spec.getWhite() + 1), spec.getRed()).equals(spec) == false)
+      {
+        reportError(spec, "odd size or white width not rounded down");
+      }
+
+      BlueRedWhite1Render.fillStripes(actual, spec);
+      int[] spans = BlueRedWhite1Render.cropSpans(spec);
+      BlueRedWhite1Quad quad = BlueRedWhite1Quad.combine(spec,
+        BlueRedWhite1Quad.packBits(spec, actual), spans);
+      referenceStripes(expected, spec); // original rules for top-left
+      for (int k = 0; k < half; k ++)
+        for (int i = 0; i < half; i ++)
+          if (referenceCrop(spec, i, k))
+            expected[(k * half) + i] = BlueRedWhite1Quad.GRAY;
+
+      for (int y = 0; y < half; y ++) // each pair of top and bottom rows
+      {
+        int y2 = size - y - 1;    // bottom row that mirrors row <y>
+        BlueRedWhite1Render.fillFullRow(spec, spans, y, top, 0);
+        BlueRedWhite1Render.fillFullRow(spec, spans, y2, bottom, 0);
+        quad.getRow(y, topQuad, 0);
+        quad.getRow(y2, bottomQuad, 0);
+        boolean good = Arrays.equals(top, topQuad)
+          && Arrays.equals(bottom, bottomQuad);
+        for (int i = 0; good && (i < half); i ++)
+        {
+          byte color = top[i];    // top-left quadrant
+          good = (color == expected[(y * half) + i]) // original rules
+            && (top[size - i - 1] == BlueRedWhite1Quad.swapColor(color))
+            && (bottom[i] == BlueRedWhite1Quad.swapColor(color))
+            && (bottom[size - i - 1] == color);
+        }
+        if (good == false)
+        {
+          reportError(spec, ("full image wrong in rows " + y + " and "
+            + y2));
+          break;
+        }
+        imageSum.update(top);
+        imageSum.update(bottom);
+      }
+    }
+
+    return(size + "," + hexCrc(stripeSum) + "," + hexCrc(maskSum) + ","
+      + hexCrc(imageSum));
+
+  } // end of checkShard() method
+
+  /* checksum as eight hexadecimal digits */
+
+  static String hexCrc(java.util.zip.CRC32 checksum)
+  {
+    String text = Long.toHexString(checksum.getValue());
+    while (text.length() < 8)
+      text = "0" + text;
+    return(text);
+  }
+
+/*
+  referenceCrop() method
+
+  Return true if pixel <i>, <k> in the top-left quadrant is cropped (gray),
+  using the original test for each pixel: the square of its distance from the
+  center of the corner is compared with the square of the radius.
+*/
+  static boolean referenceCrop(BlueRedWhite1Spec spec, int i, int k)
+  {
+    int iconSizeHalf = spec.getSize() / 2;
+    int borderWidth = spec.getBorder();
+    int radius = (int) Math.round(spec.getCurve() * (iconSizeHalf
+      - borderWidth) / 100.0);
+    int center = borderWidth + radius;
+    int square = (int) ((radius + 0.3) * (radius + 0.3));
+
+    if ((i < borderWidth) || (k < borderWidth)) // always clear border
+      return(true);
+    else if ((i >= center) || (k >= center)) // solid section, no curve
+      return(false);
+    return((((i - center) * (i - center)) + ((k - center) * (k - center)))
+      > square);
+  }
+
+/*
+  referenceStripes() method
+
+  Draw the stripes in the top-left quadrant the original way: a horizontal and
+  a vertical rectangle for each stripe, clipped to the quadrant, with later
+  stripes drawn over earlier ones.
+*/
+  static void referenceStripes(byte[] quadrant, BlueRedWhite1Spec spec)
+  {
+    int iconSizeHalf = spec.getSize() / 2;
+    Arrays.fill(quadrant, 0, (iconSizeHalf * iconSizeHalf),
+      BlueRedWhite1Quad.WHITE);
+    int offset = spec.getWhite() / 2;
+    boolean flipFlag = false;
+    while (offset < iconSizeHalf)
+    {
+      byte color = flipFlag ? BlueRedWhite1Quad.RED : BlueRedWhite1Quad.BLUE;
+      int inner = iconSizeHalf - offset; // inside edge of this stripe
+      int outer = Math.max(0, (inner - spec.getRed())); // outside, clipped
+      for (int k = outer; k < inner; k ++) // horizontal rectangle
+        Arrays.fill(quadrant, (k * iconSizeHalf), ((k * iconSizeHalf)
+          + inner), color);
+      for (int k = 0; k < inner; k ++) // vertical rectangle
+        Arrays.fill(quadrant, ((k * iconSizeHalf) + outer), ((k
+          * iconSizeHalf) + inner), color);
+      flipFlag = ! flipFlag;
+      offset += spec.getRed() + spec.getWhite();
+    }
+  }
+
+  /* report one error, unless there have been too many already */
+
+  static synchronized void reportError(BlueRedWhite1Spec spec, String text)
+  {
+    errorCount ++;
+    if (errorCount <= MAX_ERRORS)
+      System.err.println("Error: " + text + ": " + spec);
+    else if (errorCount == (MAX_ERRORS + 1))
+      System.err.println("Too many errors, no more will be reported.");
+  }
+
+/*
+  run() method
+
+  Each thread takes the next shard (size), largest first so that the threads
+  finish at about the same time, and checks it.
+*/
+  public void run()
+  {
+    while (true)
+    {
+      int shard;                  // index into <sizeList>
+      synchronized (BlueRedWhite1Check.class)
+      {
+        if (nextShard >= sizeList.length)
+          break;
+        shard = sizeList.length - 1 - nextShard; // largest first
+        nextShard ++;
+      }
+      results[shard] = checkShard(sizeList[shard]);
+    }
+  }
+
+/*
+  runCheck() method
+
+  Check all sizes in parallel, then compare the checksums with the golden file
+  if there is one, or write a new golden file if asked (-validate-write).  A
+  golden file that doesn't exist is an error, found before checking anything,
+  so a missing or misspelled file can't pass by quietly becoming the new
+  standard.  Return an exit status for the application.
+*/
+  static int runCheck()
+  {
+    if ((goldenFile != null) && (writeGolden == false)
+      && (goldenFile.exists() == false))
+    {
+      System.err.println("Golden file not found: " + goldenFile.getPath()
+        + " (use -validate-write to create one)");
+      return(BlueRedWhite1.EXIT_FAILURE);
+    }
+
+    int threadCount = BlueRedWhite1Batch.threadCount; // number of threads
+    long started = System.currentTimeMillis(); // for elapsed time
+    errorCount = nextShard = 0;
+    results = new String[sizeList.length];
+    System.out.println("Checking " + sizeList.length + " sizes with "
+      + threadCount + " threads");
+
+    Thread[] threads = new Thread[threadCount];
+    for (int i = 0; i < threadCount; i ++)
+    {
+      threads[i] = new Thread(new BlueRedWhite1Check());
+      threads[i].start();
+    }
+    for (int i = 0; i < threadCount; i ++)
+    {
+      try { threads[i].join(); }
+      catch (InterruptedException ie) { /* not expected, ignore */ }
+    }
+
+    try                           // compare with, or write, golden file
+    {
+      if (goldenFile == null)     // no file, show checksums on console
+      {
+        for (int i = 0; i < results.length; i ++)
+          System.out.println(results[i]);
+      }
+      else if (writeGolden == false) // compare with existing file
+      {
+        HashMap<String, String> golden = new HashMap<String, String>();
+                                  // checksum lines by size
+        BufferedReader reader = new BufferedReader(new FileReader(
+          goldenFile));
+        String line;              // one line from golden file
+        while ((line = reader.readLine()) != null)
+          if (line.indexOf(',') > 0)
+            golden.put(line.substring(0, line.indexOf(',')), line.trim());
+        reader.close();
+        int missing = 0;          // sizes not in golden file
+        for (int i = 0; i < results.length; i ++)
+        {
+          String expected = golden.get(String.valueOf(sizeList[i]));
+          if (expected == null)
+            missing ++;
+          else if (expected.equals(results[i]) == false)
+          {
+            errorCount ++;
+            System.err.println("Checksums differ for size " + sizeList[i]
+              + ": golden " + expected + ", now " + results[i]);
+          }
+        }
+        if (missing > 0)
+          System.out.println(missing + " sizes not in golden file "
+            + goldenFile.getPath());
+      }
+      else if (errorCount > 0)    // never save checksums that failed
+      {
+        System.err.println("Golden file not written because of errors: "
+          + goldenFile.getPath());
+      }
+      else                        // -validate-write: new golden file
+      {
+        PrintWriter writer = new PrintWriter(new FileWriter(goldenFile));
+        writer.println("size,stripes,masks,images");
+        for (int i = 0; i < results.length; i ++)
+          writer.println(results[i]);
+        writer.close();
+        System.out.println("Wrote golden file " + goldenFile.getPath());
+      }
+    }
+    catch (IOException ioe)
+    {
+      System.err.println("Can't use golden file " + goldenFile.getPath()
+        + ": " + ioe.getMessage());
+      return(BlueRedWhite1.EXIT_FAILURE);
+    }
+
+    System.out.println(((errorCount == 0) ? "No errors" : (errorCount
+      + " errors")) + " in " + ((System.currentTimeMillis() - started)
+      / 1000.0) + " seconds");
+    return((errorCount > 0) ? BlueRedWhite1.EXIT_FAILURE
+      : BlueRedWhite1.EXIT_SUCCESS);
+
+  } // end of runCheck() method
+
+} // end of BlueRedWhite1Check class
+
+// ------------------------------------------------------------------------- //
+
+/*
+  BlueRedWhite1Clip class
+
+  This class puts an icon on the clipboard.  Only the parameters are kept, and
+  the image is created when another application asks for it, so nothing big
+  stays in memory just in case the user copies.  The image may be scaled up by
+  a whole number (zoom).  Besides the usual Java image flavor, we offer a PNG
+  byte stream, which many applications accept directly and which avoids their
+  converting an AWT image.
+*/
+
+class BlueRedWhite1Clip implements Transferable
+{
+  /* constants */
+
+  static final DataFlavor PNG_FLAVOR = new DataFlavor(
+    "image/png; class=java.io.InputStream", "PNG image");
+
+  /* instance variables */
+
+  int scale;                      // whole number, one or more
+  BlueRedWhite1Spec spec;         // parameters for icon
+
+  /* class constructor */
+
+  public BlueRedWhite1Clip(BlueRedWhite1Spec spec, int scale)
+  {
+    this.scale = Math.max(1, scale);
+    this.spec = spec;
+  }
+
+  /* transferable interface to copy image to clipboard */
+
+  public Object getTransferData(DataFlavor flavor)
+    throws IOException, UnsupportedFlavorException
+  {
+    if (isDataFlavorSupported(flavor) == false)
+      throw new UnsupportedFlavorException(flavor);
+    BlueRedWhite1Quad quad = BlueRedWhite1Batch.renderer.getQuad(spec);
+    if (quad == null)             // only happens if thread is interrupted
+      throw new IOException("clipboard image was cancelled");
+    if (flavor.equals(DataFlavor.imageFlavor))
+      return(quad.toImage(scale));
+
+    /* The PNG file is written one row at a time from the compact icon, so no
+    full image is created, even when zoomed.  Only the compressed bytes are
+    kept. */
+
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    BlueRedWhite1Png.writeQuad(quad, scale, java.nio.channels.Channels
+      .newChannel(stream));
+    return(new ByteArrayInputStream(stream.toByteArray()));
+  }
+
+  public DataFlavor[] getTransferDataFlavors()
+  {
+    final DataFlavor[] result = { DataFlavor.imageFlavor, PNG_FLAVOR };
+    return(result);
+  }
+
+  public boolean isDataFlavorSupported(DataFlavor flavor)
+  {
+    return(flavor.equals(DataFlavor.imageFlavor)
+      || flavor.equals(PNG_FLAVOR));
+  }
+
+} // end of BlueRedWhite1Clip class
+
+// ------------------------------------------------------------------------- //
+
+/*
+  BlueRedWhite1Compare class
+
+  This class draws a comparison grid of icons in the scroll pane, instead of
+  one icon.  White widths go across and blue red widths go down, and the other
+  parameters come from the sliders.  Each icon is drawn at its actual size
+  (the zoom slider isn't used here).
+
+  Only the tiles in the visible part of the scroll pane are created, by a small
+  pool of background threads (see BlueRedWhite1Tiles), and each tile appears
+  as soon as it is finished.  This panel only paints: it draws the tiles that
+  are finished and asks for the others.
+
+  The cache of finished tiles always has room for every visible tile plus
+  BlueRedWhite1Tiles.CACHE_BYTES, even for very large icons.  Otherwise one
+  finished tile could push out another visible tile, which would be requested
+  again, and so on forever.
+*/
+
+class BlueRedWhite1Compare extends JPanel
+{
+  /* constants */
+
+  private static final long serialVersionUID = 1L; // never serialized
+
+  static final int GAP = 12;      // pixels between tiles
+  static final int LABEL_HEIGHT = 24; // pixels for labels above columns
+  static final int LABEL_WIDTH = 72; // pixels for labels left of rows
+
+  /* class variables (GUI thread only) */
+
+  static int[] redList = { 6, 10, 14, 18, 22, 26, 30 }; // values down
+  static String redText = "6-30/4"; // same as text, for dialog box
+  static int[] whiteList = { 0, 4, 8, 12, 16, 20, 24, 28, 32, 36, 40, 44, 48 };
+  static String whiteText = "0-48/4"; // values across, as text
+
+  /* instance variables (GUI thread only) */
+
+  BlueRedWhite1Spec base = null;  // size, border, curve for every tile
+
+  /* class constructor */
+
+  public BlueRedWhite1Compare()
+  {
+    super();                      // initialize our superclass first (JPanel)
+  }
+
+/*
+  askRanges() method
+
+  Ask the user which white widths and blue red widths to compare, using the
+  same syntax as the command line ("0-48/4").  Return false if the user
+  cancelled the dialog box.  Bad numbers are reported and asked again.
+*/
+  static boolean askRanges()
+  {
+    JTextField whiteField = new JTextField(whiteText, 12);
+    JTextField redField = new JTextField(redText, 12);
+    JPanel panel = new JPanel(new GridLayout(2, 2, 10, 10));
+    panel.add(new JLabel("White widths across:"));
+    panel.add(whiteField);
+    panel.add(new JLabel("Blue red widths down:"));
+    panel.add(redField);
+
+    while (true)
+    {
+      if (JOptionPane.showConfirmDialog(BlueRedWhite1.mainFrame, panel,
+        "Compare Grid", JOptionPane.OK_CANCEL_OPTION,
+        JOptionPane.PLAIN_MESSAGE) != JOptionPane.OK_OPTION)
+      {
+        return(false);            // user cancelled dialog box
+      }
+      int[] whites = BlueRedWhite1Batch.evenRange(BlueRedWhite1Batch
+        .parseRange(whiteField.getText().trim(), 0, 99));
+      int[] reds = BlueRedWhite1Batch.parseRange(redField.getText().trim(), 1,
+        99);
+      if ((whites != null) && (reds != null))
+      {
+        whiteList = whites;
+        whiteText = whiteField.getText().trim();
+        redList = reds;
+        redText = redField.getText().trim();
+        BlueRedWhite1Tiles.cancel(); // old tiles are no longer wanted
+        return(true);
+      }
+      JOptionPane.showMessageDialog(BlueRedWhite1.mainFrame,
+        "Please enter a number (12), a range (0-48), or a range with a step\n"
+        + "(0-48/4).  White widths are 0 to 99, blue red widths are 1 to 99.");
+    }
+  } // end of askRanges() method
+
+  /* parameters for one tile, from column and row */
+
+  static BlueRedWhite1Spec getTileSpec(BlueRedWhite1Spec base, int column,
+    int row)
+  {
+    return(new BlueRedWhite1Spec(base.getSize(), base.getBorder(),
+      base.getCurve(), whiteList[column], redList[row]));
+  }
+
+/*
+  getVisibleTiles() method
+
+  Return the first column, one past the last column, the first row, and one
+  past the last row of tiles that are at least partly inside a rectangle.
+*/
+  static int[] getVisibleTiles(Rectangle visible, int step)
+  {
+    int[] result = new int[4];
+    result[0] = Math.max(0, BlueRedWhite1View.floorDiv((visible.x
+      - LABEL_WIDTH), step));
+    result[1] = Math.min(whiteList.length, (BlueRedWhite1View.floorDiv(
+      (visible.x + visible.width - LABEL_WIDTH - 1), step) + 1));
+    result[2] = Math.max(0, BlueRedWhite1View.floorDiv((visible.y
+      - LABEL_HEIGHT), step));
+    result[3] = Math.min(redList.length, (BlueRedWhite1View.floorDiv(
+      (visible.y + visible.height - LABEL_HEIGHT - 1), step) + 1));
+    return(result);
+  }
+
+/*
+  paintComponent() method
+
+  Draw the labels and any finished tiles that are inside the clipping
+  rectangle.  Tiles that aren't finished are drawn as gray boxes.  Then ask
+  the background threads for every unfinished tile in the visible part of the
+  panel, which replaces any older requests, so tiles that have been scrolled
+  out of view are never created.
+*/
+  protected void paintComponent(Graphics context)
+  {
+    super.paintComponent(context); // anything base JPanel wants first
+
+    if (base == null)             // nothing to draw during setup
+      return;
+    int step = base.getSize() + GAP; // distance from one tile to the next
+    Rectangle clip = context.getClipBounds(); // what needs to be painted
+    if (clip == null)             // no clipping means paint everything
+      clip = new Rectangle(0, 0, this.getWidth(), this.getHeight());
+    int[] range = getVisibleTiles(clip, step); // first, last columns and rows
+
+    context.setFont(new Font(BlueRedWhite1.SYSTEM_FONT, Font.PLAIN, 14));
+    int ascent = context.getFontMetrics().getAscent(); // text baseline
+    context.setColor(Color.BLACK);
+    for (int i = range[0]; i < range[1]; i ++) // labels above columns
+      context.drawString(("white " + whiteList[i]), (LABEL_WIDTH + (i * step)),
+        ascent);
+    for (int k = range[2]; k < range[3]; k ++) // labels left of rows
+      context.drawString(("red " + redList[k]), 0, (LABEL_HEIGHT + (k * step)
+        + ascent));
+
+    for (int k = range[2]; k < range[3]; k ++) // each visible row
+      for (int i = range[0]; i < range[1]; i ++) // each visible column
+      {
+        int x = LABEL_WIDTH + (i * step); // top-left corner of tile
+        int y = LABEL_HEIGHT + (k * step);
+        BufferedImage image = BlueRedWhite1Tiles.getImage(getTileSpec(base,
+          i, k));
+        if (image != null)        // finished, ready to draw
+          context.drawImage(image, x, y, null);
+        else                      // not finished yet, show where it will be
+        {
+          context.setColor(new Color(BlueRedWhite1Render.OUR_GRAY));
+          context.fillRect(x, y, base.getSize(), base.getSize());
+        }
+      }
+
+    /* Ask for the unfinished tiles in the whole visible rectangle, not just
+    the clipping rectangle, because one finished tile may repaint only itself.
+    Tiles are created in rows, from top-left to bottom-right. */
+
+    range = getVisibleTiles(this.getVisibleRect(), step);
+    BlueRedWhite1Tiles.setVisibleBytes((long) (range[1] - range[0])
+      * (range[3] - range[2]) * base.getSize() * base.getSize());
+    LinkedList<BlueRedWhite1Spec> list = new LinkedList<BlueRedWhite1Spec>();
+                                  // unfinished tiles, in order
+    for (int k = range[2]; k < range[3]; k ++)
+      for (int i = range[0]; i < range[1]; i ++)
+      {
+        BlueRedWhite1Spec spec = getTileSpec(base, i, k);
+        if (BlueRedWhite1Tiles.getImage(spec) == null)
+          list.add(spec);
+      }
+    BlueRedWhite1Tiles.request(list);
+
+  } // end of paintComponent() method
+
+/*
+  repaintTile() method
+
+  Repaint only the part of the panel where a finished tile goes, if that tile
+  is still part of the grid.  Called on the GUI thread.
+*/
+  void repaintTile(BlueRedWhite1Spec spec)
+  {
+    if ((base == null) || (spec.getSize() != base.getSize())
+      || (spec.getBorder() != base.getBorder())
+      || (spec.getCurve() != base.getCurve()))
+    {
+      return;                     // sliders have moved since
+    }
+    int step = base.getSize() + GAP; // distance from one tile to the next
+    for (int k = 0; k < redList.length; k ++)
+      for (int i = 0; i < whiteList.length; i ++)
+        if ((whiteList[i] == spec.getWhite()) && (redList[k] == spec.getRed()))
+          repaint((LABEL_WIDTH + (i * step)), (LABEL_HEIGHT + (k * step)),
+            spec.getSize(), spec.getSize());
+  }
+
+/*
+  updateGrid() method
+
+  Set the panel size for the icon size in <spec> and the number of tiles, then
+  repaint.  Called after a slider changes or a new grid is chosen.  The white
+  and red widths in <spec> are ignored.
+*/
+  static void updateGrid(BlueRedWhite1Spec spec)
+  {
+    int step = spec.getSize() + GAP; // tile plus gap
+    BlueRedWhite1.compareCanvas.base = spec;
+    BlueRedWhite1.compareCanvas.setPreferredSize(new Dimension((LABEL_WIDTH
+      + (whiteList.length * step)), (LABEL_HEIGHT + (redList.length
+      * step))));
+    BlueRedWhite1.compareCanvas.revalidate(); // recheck layout
+    BlueRedWhite1.compareCanvas.repaint();
+  }
+
+} // end of BlueRedWhite1Compare class
+
+// ------------------------------------------------------------------------- //
+
+/*
+  BlueRedWhite1Grid class
+
+  This class draws a pattern centered in the panel, with alternating blue and
+  red lines on a white background, inside a cropped and rounded rectangle.  The
+  icon image is created elsewhere (see BlueRedWhite1Render) and only drawn
+  here (see BlueRedWhite1View), so scrolling, zooming, and resizing the window
+  are cheap.
+*/
+
+class BlueRedWhite1Grid extends JPanel
+{
+  /* instance variables (GUI thread only) */
+
+  BufferedImage image = null;     // current icon image, for display only
+  int iconSize = 0;               // full size of icon, even for preview image
+  int zoom = 1;                   // whole pixels per icon pixel
+
+  /* class constructor */
+
+  public BlueRedWhite1Grid()
+  {
+    super();                      // initialize our superclass first (JPanel)
+  }
+
+  /* paint the display panel */
+
+  protected void paintComponent(Graphics context)
+  {
+    super.paintComponent(context); // anything base JPanel wants first
+
+    if (image == null)            // nothing to draw during setup
+      return;
+
+    int panelHeight = this.getHeight(); // height of this panel in pixels
+    int panelWidth = this.getWidth(); // width of this panel in pixels
+    long started = System.nanoTime(); // for timing statistics
+    BlueRedWhite1View.drawIcon(context, image, iconSize, zoom, panelWidth,
+      panelHeight);
+    BlueRedWhite1Stats.record(BlueRedWhite1Stats.DRAW, started, iconSize,
+      zoom);
+
+    if (BlueRedWhite1Stats.overlay) // show statistics on top of icon
+      BlueRedWhite1Stats.drawOverlay(context, this.getVisibleRect());
+
+  } // end of paintComponent() method
+
+  /* show a new icon image, which may be a preview smaller than <size> */
+
+  void setIcon(BufferedImage image, int size)
+  {
+    this.image = image;
+    this.iconSize = size;
+    this.repaint();               // only draw, don't create
+  }
+
+  /* change the zoom level; caller updates the panel size */
+
+  void setZoom(int zoom)
+  {
+    this.zoom = zoom;
+    this.repaint();
+  }
+
+} // end of BlueRedWhite1Grid class
+
+// ------------------------------------------------------------------------- //
+
+/*
+  BlueRedWhite1Icon class
+
+  This class writes a Windows icon file (*.ico) with several sizes of the same
+  icon, from one set of parameters.  Border and line widths are scaled for each
+  size.  Each size is created and compressed as PNG by its own thread, with our
+  own encoder (see BlueRedWhite1Png), and then the whole file is written in one
+  pass through a file channel.  Windows Vista and later accept PNG data inside
+  icon files, and PNG is much smaller than the older bitmap format.
+*/
+
+class BlueRedWhite1Icon implements Runnable
+{
+  /* constants */
+
+  static final int[] ICON_SIZES = { 16, 24, 32, 48, 64, 128, 256 };
+
+  /* class variables */
+
+  static File iconFile = null;    // command-line option for icon file
+
+  /* instance variables */
+
+  byte[] pngData;                 // compressed image, or null if failed
+  BlueRedWhite1Spec spec;         // parameters for this size
+
+  /* class constructor */
+
+  public BlueRedWhite1Icon(BlueRedWhite1Spec spec)
+  {
+    this.pngData = null;
+    this.spec = spec;
+  }
+
+/*
+  run() method
+
+  Create one icon size and compress it as PNG.  Icons use 32-bit color with an
+  alpha channel, even though our pixels are all opaque, because that's what
+  Windows expects.  No images are created: rows go straight to the encoder.
+*/
+  public void run()
+  {
+    try
+    {
+      ByteArrayOutputStream stream = new ByteArrayOutputStream();
+      BlueRedWhite1Png.writeIcon(spec, java.nio.channels.Channels.newChannel(
+        stream), 32);
+      pngData = stream.toByteArray();
+    }
+    catch (IOException ioe) { /* leave <pngData> as null */ }
+  }
+
+/*
+  writeIconFile() method
+
+  Write all icon sizes for one set of parameters into a single icon file.
+*/
+  static void writeIconFile(File file, BlueRedWhite1Spec spec)
+    throws IOException
+  {
+    /* Create and compress each size in parallel. */
+
+    BlueRedWhite1Icon[] sizes = new BlueRedWhite1Icon[ICON_SIZES.length];
+    Thread[] threads = new Thread[ICON_SIZES.length];
+    for (int i = 0; i < ICON_SIZES.length; i ++)
+    {
+      sizes[i] = new BlueRedWhite1Icon(spec.scaleTo(ICON_SIZES[i]));
+      threads[i] = new Thread(sizes[i]);
+      threads[i].start();
+    }
+    for (int i = 0; i < ICON_SIZES.length; i ++)
+    {
+      try { threads[i].join(); }
+      catch (InterruptedException ie) { /* not expected, ignore */ }
+      if (sizes[i].pngData == null)
+        throw new IOException("can't compress icon size " + ICON_SIZES[i]);
+    }
+
+    /* Build the header and directory: six bytes for the header, and sixteen
+    bytes for each entry.  Numbers are little-endian.  A width or height of
+    256 is written as zero. */
+
+    java.nio.ByteBuffer header = java.nio.ByteBuffer.allocate(6
+      + (16 * sizes.length));
+    header.order(java.nio.ByteOrder.LITTLE_ENDIAN);
+    header.putShort((short) 0);   // reserved
+    header.putShort((short) 1);   // resource type: 1 for icons
+    header.putShort((short) sizes.length); // number of images
+    int offset = header.capacity(); // first image follows directory
+    for (int i = 0; i < sizes.length; i ++)
+    {
+      int size = sizes[i].spec.getSize();
+      header.put((byte) ((size >= 256) ? 0 : size)); // width
+      header.put((byte) ((size >= 256) ? 0 : size)); // height
+      header.put((byte) 0);       // color count: none, not a palette
+      header.put((byte) 0);       // reserved
+      header.putShort((short) 1); // color planes
+      header.putShort((short) 32); // bits per pixel
+      header.putInt(sizes[i].pngData.length); // bytes in image
+      header.putInt(offset);      // where image starts in file
+      offset += sizes[i].pngData.length;
+    }
+    header.flip();
+
+    /* Write everything in one pass.  No temporary files are needed. */
+
+    FileOutputStream stream = new FileOutputStream(file);
+    try
+    {
+      java.nio.channels.FileChannel channel = stream.getChannel();
+      while (header.hasRemaining())
+        channel.write(header);
+      for (int i = 0; i < sizes.length; i ++)
+      {
+        java.nio.ByteBuffer data = java.nio.ByteBuffer.wrap(sizes[i].pngData);
+        while (data.hasRemaining())
+          channel.write(data);
+      }
+    }
+    finally { stream.close(); }
+
+  } // end of writeIconFile() method
+
+} // end of BlueRedWhite1Icon class
+
+// ------------------------------------------------------------------------- //
+
+/*
+  BlueRedWhite1Png class
+
+  This class writes PNG files one row at a time, so that very large icons can
+  be exported without ever having the whole image in memory.  Pixels are color
+  indexes into our four-color palette, packed at two bits per pixel, and the
+  compressed data goes out in IDAT chunks as soon as each chunk is full.  Only
+  the current band of rows, the compressor, and one chunk buffer are kept.
+
+  Animated PNG files (see BlueRedWhite1Anim) use four bits per pixel instead,
+  with a fifth palette entry that is transparent.  Windows icon files (see
+  BlueRedWhite1Icon) use 32-bit color with an alpha channel, and no palette.
+*/
+
+class BlueRedWhite1Png
+{
+  /* constants */
+
+  static final int BAND_HEIGHT = 64; // rows created at one time
+  static final int CHUNK_SIZE = 65536; // bytes of compressed data per IDAT
+  static final int[] RGB = BlueRedWhite1Quad.getColors(); // our own palette
+  static final byte[] SIGNATURE = { (byte) 137, 80, 78, 71, 13, 10, 26, 10 };
+  static final int STREAM_MAX_SIZE = 65536; // largest size for streaming
+
+  /* instance variables */
+
+  java.nio.channels.WritableByteChannel channel; // where PNG file goes
+  byte[] chunk;                   // compressed data for next IDAT chunk
+  int chunkUsed;                  // bytes used in <chunk>
+  java.util.zip.Deflater deflater; // compresses image data
+  int depth;                      // bits per pixel: 2, 4, or 32 (RGBA)
+  byte[] packed;                  // one row: filter byte, then pixels
+  int width;                      // pixels per row
+
+  /* class constructor: write everything before the image data */
+
+  public BlueRedWhite1Png(java.nio.channels.WritableByteChannel channel,
+    int width, int height) throws IOException
+  {
+    this(channel, width, height, 2); // four colors, two bits per pixel
+  }
+
+  /* class constructor: four bits per pixel adds a transparent color, and 32
+  bits per pixel is red, green, blue, and alpha (always opaque) */
+
+  public BlueRedWhite1Png(java.nio.channels.WritableByteChannel channel,
+    int width, int height, int depth) throws IOException
+  {
+    this.channel = channel;
+    this.chunk = new byte[CHUNK_SIZE];
+    this.chunkUsed = 0;
+    this.deflater = new java.util.zip.Deflater();
+    this.depth = depth;
+    this.packed = new byte[1 + (((width * depth) + 7) / 8)]; // filter, pixels
+    this.width = width;
+
+    writeBytes(java.nio.ByteBuffer.wrap(SIGNATURE));
+
+    java.nio.ByteBuffer header = java.nio.ByteBuffer.allocate(13);
+    header.putInt(width);
+    header.putInt(height);
+    header.put((byte) ((depth == 32) ? 8 : depth)); // bits per sample
+    header.put((byte) ((depth == 32) ? 6 : 3)); // color type: RGBA, palette
+    header.put((byte) 0);         // compression method: deflate
+    header.put((byte) 0);         // filter method: adaptive
+    header.put((byte) 0);         // interlace method: none
+    writeChunk("IHDR", header.array(), 13);
+    if (depth == 32)              // colors are in the pixels, no palette
+      return;
+
+    int count = RGB.length + ((depth > 2) ? 1 : 0); // extra is black
+    byte[] colors = new byte[count * 3]; // red, green, blue
+    for (int i = 0; i < RGB.length; i ++)
+    {
+      colors[(i * 3)] = (byte) (RGB[i] >> 16);
+      colors[(i * 3) + 1] = (byte) (RGB[i] >> 8);
+      colors[(i * 3) + 2] = (byte) RGB[i];
+    }
+    writeChunk("PLTE", colors, colors.length);
+
+    if (depth > 2)                // only the extra color is transparent
+    {
+      byte[] alpha = new byte[count];
+      Arrays.fill(alpha, (byte) 255);
+      alpha[count - 1] = 0;
+      writeChunk("tRNS", alpha, count);
+    }
+  }
+
+/*
+  finish() method
+
+  Flush the compressor, write the last image data, and end the PNG file.  The
+  channel is not closed.
+*/
+  void finish() throws IOException
+  {
+    finishData();
+    writeChunk("IEND", chunk, 0);
+  }
+
+  /* flush the compressor and write the last IDAT chunk, but don't end file */
+
+  void finishData() throws IOException
+  {
+    deflater.finish();
+    while (deflater.finished() == false)
+      deflate();
+    if (chunkUsed > 0)            // partial chunk left over
+      writeChunk("IDAT", chunk, chunkUsed);
+    chunkUsed = 0;
+    deflater.end();               // release native memory
+  }
+
+/*
+  packRow() method
+
+  Pack <width> color indexes at <depth> bits per pixel (2 or 4), with the
+  leftmost pixel in the high bits, after a filter type of zero (none) in the
+  first byte.  For 32 bits per pixel, each index becomes four bytes: red,
+  green, blue, and an alpha of 255.
+*/
+  static void packRow(byte[] row, int offset, int width, int depth,
+    byte[] packed)
+  {
+    Arrays.fill(packed, (byte) 0); // filter byte and any partial byte
+    if (depth == 2)               // four pixels per byte
+    {
+      for (int i = 0; i < width; i ++)
+        packed[1 + (i >> 2)] |= row[offset + i] << (6 - ((i & 3) * 2));
+    }
+    else if (depth == 4)          // two pixels per byte
+    {
+      for (int i = 0; i < width; i ++)
+        packed[1 + (i >> 1)] |= row[offset + i] << (4 - ((i & 1) * 4));
+    }
+    else                          // four bytes per pixel
+    {
+      for (int i = 0, j = 1; i < width; i ++, j += 4)
+      {
+        int rgb = RGB[row[offset + i]];
+        packed[j] = (byte) (rgb >> 16);
+        packed[j + 1] = (byte) (rgb >> 8);
+        packed[j + 2] = (byte) rgb;
+        packed[j + 3] = (byte) 255; // opaque
+      }
+    }
+  }
+
+  /* compress as much as we can into <chunk>, writing full chunks */
+
+  void deflate() throws IOException
+  {
+    chunkUsed += deflater.deflate(chunk, chunkUsed, (CHUNK_SIZE - chunkUsed));
+    if (chunkUsed >= CHUNK_SIZE)
+    {
+      writeChunk("IDAT", chunk, chunkUsed);
+      chunkUsed = 0;
+    }
+  }
+
+/*
+  writeIcon() method
+
+  Write a complete PNG file for an icon, creating rows in bands directly from
+  the stripe, crop, and mirror rules.  Memory is proportional to the band
+  height times the width, not the area of the image.  The usual <depth> is
+  two bits per pixel; see the class constructor for others.
+*/
+  static void writeIcon(BlueRedWhite1Spec spec,
+    java.nio.channels.WritableByteChannel channel) throws IOException
+  {
+    writeIcon(spec, channel, 2);  // four colors, two bits per pixel
+  }
+
+  static void writeIcon(BlueRedWhite1Spec spec,
+    java.nio.channels.WritableByteChannel channel, int depth)
+    throws IOException
+  {
+    int size = spec.getSize();    // width and height of image
+    int[] spans = BlueRedWhite1Render.cropSpans(spec); // one per quadrant row
+    BlueRedWhite1Png writer = new BlueRedWhite1Png(channel, size, size,
+      depth);
+    int bandHeight = Math.min(BAND_HEIGHT, size);
+    byte[] band = new byte[bandHeight * size]; // color indexes for band
+
+    for (int first = 0; first < size; first += bandHeight) // each band
+    {
+      int rows = Math.min(bandHeight, (size - first)); // last may be short
+      for (int r = 0; r < rows; r ++)
+        BlueRedWhite1Render.fillFullRow(spec, spans, (first + r), band,
+          (r * size));
+      for (int r = 0; r < rows; r ++)
+        writer.writeRow(band, (r * size));
+    }
+    writer.finish();
+  }
+
+/*
+  writeQuad() method
+
+  Write a complete PNG file for an icon in compact form, scaled up by a whole
+  number <scale>.  Each row comes from getRow(), is widened by repeating each
+  pixel, and is written <scale> times.  Memory is one row of the scaled image.
+*/
+  static void writeQuad(BlueRedWhite1Quad quad, int scale,
+    java.nio.channels.WritableByteChannel channel) throws IOException
+  {
+    int size = quad.getSpec().getSize(); // width and height before scaling
+    BlueRedWhite1Png writer = new BlueRedWhite1Png(channel, (size * scale),
+      (size * scale));
+    byte[] row = new byte[size];  // color indexes, actual size
+    byte[] wide = new byte[size * scale]; // same row, scaled
+    for (int y = 0; y < size; y ++)
+    {
+      quad.getRow(y, row, 0);
+      for (int i = 0, j = 0; i < size; i ++, j += scale)
+        Arrays.fill(wide, j, (j + scale), row[i]);
+      for (int k = 0; k < scale; k ++)
+        writer.writeRow(wide, 0);
+    }
+    writer.finish();
+  }
+
+  /* write one chunk: length, type, data, and CRC of type and data */
+
+  void writeChunk(String type, byte[] data, int length) throws IOException
+  {
+    java.nio.ByteBuffer buffer = java.nio.ByteBuffer.allocate(length + 12);
+    buffer.putInt(length);
+    buffer.put(type.getBytes("US-ASCII"));
+    buffer.put(data, 0, length);
+    java.util.zip.CRC32 crc = new java.util.zip.CRC32();
+    crc.update(buffer.array(), 4, (length + 4)); // type and data only
+    buffer.putInt((int) crc.getValue());
+    buffer.flip();
+    writeBytes(buffer);
+  }
+
+  /* write all bytes in a buffer to our channel */
+
+  void writeBytes(java.nio.ByteBuffer buffer) throws IOException
+  {
+    while (buffer.hasRemaining())
+      channel.write(buffer);
+  }
+
+/*
+  writeRow() method
+
+  Pack one row of color indexes (see packRow) and give it to the compressor.
+*/
+  void writeRow(byte[] row, int offset) throws IOException
+  {
+    packRow(row, offset, width, depth, packed);
+    deflater.setInput(packed);
+    while (deflater.needsInput() == false)
+      deflate();
+  }
+
+} // end of BlueRedWhite1Png class
+
+// ------------------------------------------------------------------------- //
+
+/*
+  BlueRedWhite1Queue class
+
+  This class is a first-in, first-out (FIFO) queue with a fixed capacity, for
+  passing objects between threads.  Adding to a full queue waits until there
+  is room; taking from an empty queue waits until something is added.
+*/
+
+class BlueRedWhite1Queue
+{
+  /* instance variables */
+
+  int count;                      // number of objects in the queue
+  int first;                      // index of oldest object in <items>
+  Object[] items;                 // circular buffer of objects
+
+  /* class constructor */
+
+  public BlueRedWhite1Queue(int capacity)
+  {
+    count = first = 0;            // queue starts empty
+    items = new Object[Math.max(1, capacity)];
+  }
+
+  /* add an object to the end of the queue, waiting if full */
+
+  public synchronized void put(Object item)
+  {
+    while (count >= items.length)
+    {
+      try { wait(); } catch (InterruptedException ie) { /* ignore */ }
+    }
+    items[(first + count) % items.length] = item;
+    count ++;
+    notifyAll();                  // wake up anyone waiting to take
+  }
+
+  /* remove an object from the front of the queue, waiting if empty */
+
+  public synchronized Object take()
+  {
+    while (count <= 0)
+    {
+      try { wait(); } catch (InterruptedException ie) { /* ignore */ }
+    }
+    Object result = items[first];
+    items[first] = null;          // allow garbage collection
+    first = (first + 1) % items.length;
+    count --;
+    notifyAll();                  // wake up anyone waiting to put
+    return(result);
+  }
+
+} // end of BlueRedWhite1Queue class
+
+// ------------------------------------------------------------------------- //
+
+/*
+  BlueRedWhite1Server class
+
+  This class answers HTTP requests for icons as PNG files, using the small
+  HTTP server that comes with the Java run-time, so build scripts and other
+  tools can get icons without starting the GUI.  Parameters are query
+  arguments with the same names as the command-line options:
+
+      http://127.0.0.1:8080/icon.png?size=64&border=2&curve=70&white=4&red=5
+
+  Missing parameters take their values from the command line, or else the
+  usual defaults.  The server only listens on the local (loopback) address.
+  Each response has a strong entity tag (ETag) made from the parameters, and a
+  request with a matching tag gets a "304 Not Modified" response without any
+  image.  Compressed PNG files are kept in a cache limited by total bytes, so
+  repeated requests are only copied to the network.
+
+  Requests are handled by a fixed number of our own threads (see -threads),
+  fed by a small queue.  That number is the limit on concurrent requests: when
+  all threads are busy and the queue is full, the server stops accepting new
+  requests until a thread is free.
+*/
+
+class BlueRedWhite1Server implements com.sun.net.httpserver.HttpHandler,
+  java.util.concurrent.Executor, Runnable
+{
+  /* constants */
+
+  static final int CACHE_BYTES = 32 * 1024 * 1024; // maximum bytes in PNG
+  static final String[] PARAM_NAMES = { "size", "border", "curve", "white",
+    "red" };                      // query arguments, in Spec order
+
+  /* class variables */
+
+  static BlueRedWhite1Cache pngCache = new BlueRedWhite1Cache(CACHE_BYTES);
+                                  // compressed PNG files by parameters
+  static BlueRedWhite1Queue queue; // requests waiting for a thread
+  static int serverPort = 0;      // TCP port number, or zero if not serving
+
+  /* empty constructor */
+
+  public BlueRedWhite1Server() { }
+
+/*
+  execute() method
+
+  Called by the HTTP server with each new request.  Put the request in our
+  queue, waiting if the queue is full, for one of our threads to run.
+*/
+  public void execute(Runnable task)
+  {
+    queue.put(task);
+  }
+
+/*
+  getPngData() method
+
+  Return the PNG file for an icon as bytes, from the cache if we have it, or
+  else create and compress a new icon.  Rows are written directly from the
+  drawing rules (see BlueRedWhite1Png.writeIcon), so no full image is needed.
+*/
+  static byte[] getPngData(BlueRedWhite1Spec spec) throws IOException
+  {
+    byte[] result = (byte[]) pngCache.get(spec);
+    if (result == null)           // not cached, create and compress
+    {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      BlueRedWhite1Png.writeIcon(spec, java.nio.channels.Channels.newChannel(
+        bytes));
+      result = (byte[]) pngCache.put(spec, bytes.toByteArray());
+    }
+    return(result);
+  }
+
+/*
+  handle() method
+
+  Answer one HTTP request.  Only GET and HEAD are allowed.  Bad parameters get
+  a short text message instead of an image.
+*/
+  public void handle(com.sun.net.httpserver.HttpExchange exchange)
+    throws IOException
+  {
+    try
+    {
+      String method = exchange.getRequestMethod();
+      boolean headFlag = method.equals("HEAD"); // true if no body wanted
+      if ((headFlag == false) && (method.equals("GET") == false))
+      {
+        exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+        sendText(exchange, 405, "Only GET and HEAD are allowed.");
+        return;
+      }
+      BlueRedWhite1Spec spec = parseQuery(exchange.getRequestURI()
+        .getQuery());             // decoded: "%36%34" is "64"
+      if (spec == null)           // bad parameter name or number
+      {
+        sendText(exchange, 400, "Parameters are size=16-"
+          + BlueRedWhite1Render.MAX_SIZE
+          + ", border=0-99, curve=0-99, white=0-99, red=1-99.");
+        return;
+      }
+
+      /* The entity tag depends only upon the parameters (after they have been
+      adjusted), because the same parameters always give the same image. */
+
+      String tag = "\"" + spec.getFileName() + "\"";
+      com.sun.net.httpserver.Headers headers = exchange.getResponseHeaders();
+      headers.set("Cache-Control", "max-age=86400");
+      headers.set("ETag", tag);
+      if (matchesTag(exchange.getRequestHeaders().getFirst("If-None-Match"),
+        tag))
+      {
+        exchange.sendResponseHeaders(304, -1); // no body
+        return;
+      }
+
+      byte[] data = getPngData(spec);
+      headers.set("Content-Type", "image/png");
+      if (headFlag)               // same headers as GET, without the body
+      {
+        headers.set("Content-Length", String.valueOf(data.length));
+        exchange.sendResponseHeaders(200, -1);
+      }
+      else
+      {
+        exchange.sendResponseHeaders(200, data.length);
+        exchange.getResponseBody().write(data);
+      }
+    }
+    finally
+    {
+      exchange.close();           // always finish the exchange
+    }
+  } // end of handle() method
+
+/*
+  matchesTag() method
+
+  Return true if an "If-None-Match" header matches our entity tag.  The header
+  may be a list of tags separated by commas, or "*" for any tag.  Weak tags
+  ("W/" prefix) are compared as if strong, as the standard says for this
+  header.
+*/
+  static boolean matchesTag(String header, String tag)
+  {
+    if (header == null)           // no header, no match
+      return(false);
+    StringTokenizer tokens = new StringTokenizer(header, ",");
+    while (tokens.hasMoreTokens())
+    {
+      String word = tokens.nextToken().trim();
+      if (word.startsWith("W/"))  // weak comparison
+        word = word.substring(2);
+      if (word.equals("*") || word.equals(tag))
+        return(true);
+    }
+    return(false);
+  }
+
+/*
+  parseQuery() method
+
+  Return icon parameters from the query part of a URL, or null if a name isn't
+  known or a number isn't correct.  Missing parameters take the first value
+  from the command line (see BlueRedWhite1Batch).
+*/
+  static BlueRedWhite1Spec parseQuery(String query)
+  {
+    int[] values = { BlueRedWhite1Batch.sizeList[0],
+      BlueRedWhite1Batch.borderList[0], BlueRedWhite1Batch.curveList[0],
+      BlueRedWhite1Batch.whiteList[0], BlueRedWhite1Batch.redList[0] };
+    int[] lowest = { 16, 0, 0, 0, 1 }; // same limits as command line
+    int[] highest = { BlueRedWhite1Render.MAX_SIZE, 99, 99, 99, 99 };
+
+    StringTokenizer tokens = new StringTokenizer(((query == null) ? ""
+      : query), "&");
+    while (tokens.hasMoreTokens())
+    {
+      String word = tokens.nextToken(); // one "name=value" pair
+      int equals = word.indexOf('=');
+      String name = (equals < 0) ? word : word.substring(0, equals);
+      int index = PARAM_NAMES.length - 1; // find name in our list
+      while ((index >= 0) && (PARAM_NAMES[index].equalsIgnoreCase(name)
+        == false))
+      {
+        index --;
+      }
+      if ((index < 0) || (equals < 0)) // unknown name, or no value
+        return(null);
+      try { values[index] = Integer.parseInt(word.substring(equals + 1)); }
+      catch (NumberFormatException nfe) { return(null); }
+      if ((values[index] < lowest[index]) || (values[index] > highest[index]))
+        return(null);
+    }
+    return(new BlueRedWhite1Spec(values[0], values[1], values[2], values[3],
+      values[4]));
+  }
+
+/*
+  run() method
+
+  One of our request threads: take the next request from the queue and run it.
+  A request that fails doesn't stop the thread.
+*/
+  public void run()
+  {
+    while (true)
+    {
+      Runnable task = (Runnable) queue.take();
+      try { task.run(); }
+      catch (RuntimeException re)
+      {
+        System.err.println("Error in HTTP request: " + re);
+      }
+    }
+  }
+
+/*
+  runServer() method
+
+  Start the HTTP server on the loopback address, and keep serving until the
+  application is stopped.  Return an exit status only if the server can't be
+  started.
+*/
+  static int runServer()
+  {
+    BlueRedWhite1Server handler = new BlueRedWhite1Server();
+    com.sun.net.httpserver.HttpServer server;
+
+    /* Headers and body are written separately.  Without TCP_NODELAY, small
+    responses wait for a delayed ACK from the client, about 40 ms each. */
+
+    if (System.getProperty("sun.net.httpserver.nodelay") == null)
+      System.setProperty("sun.net.httpserver.nodelay", "true");
+    try
+    {
+
+      server = com.sun.net.httpserver.HttpServer.create(
+        new java.net.InetSocketAddress(java.net.InetAddress
+        .getLoopbackAddress(), serverPort), 0);
+    }
+    catch (IOException ioe)
+    {
+      System.err.println("Can't start HTTP server on port " + serverPort
+        + ": " + ioe.getMessage());
+      return(BlueRedWhite1.EXIT_FAILURE);
+    }
+
+    int threadCount = BlueRedWhite1Batch.threadCount; // concurrent requests
+    queue = new BlueRedWhite1Queue(threadCount * 4); // small, limits backlog
+    Thread[] threads = new Thread[threadCount];
+    for (int i = 0; i < threadCount; i ++)
+    {
+      threads[i] = new Thread(handler, ("BlueRedWhite1Server-" + i));
+      threads[i].start();
+    }
+    server.createContext("/", handler); // any path, parameters in query
+    server.setExecutor(handler);  // our threads, not one per request
+    server.start();
+    System.out.println("Serving icons at http://"
+      + server.getAddress().getAddress().getHostAddress() + ":"
+      + server.getAddress().getPort() + "/icon.png with " + threadCount
+      + " threads");
+
+    for (int i = 0; i < threadCount; i ++) // threads never finish
+    {
+      try { threads[i].join(); }
+      catch (InterruptedException ie) { /* not expected, ignore */ }
+    }
+    return(BlueRedWhite1.EXIT_FAILURE); // threads should never stop
+
+  } // end of runServer() method
+
+/*
+  sendText() method
+
+  Send a short plain text response with an HTTP status code.  Used for errors.
+*/
+  static void sendText(com.sun.net.httpserver.HttpExchange exchange,
+    int status, String text) throws IOException
+  {
+    byte[] data = (text + "\n").getBytes("US-ASCII");
+    exchange.getResponseHeaders().set("Content-Type",
+      "text/plain; charset=US-ASCII");
+    if (exchange.getRequestMethod().equals("HEAD")) // headers only
+      exchange.sendResponseHeaders(status, -1);
+    else
+    {
+      exchange.sendResponseHeaders(status, data.length);
+      exchange.getResponseBody().write(data);
+    }
+  }
+
+} // end of BlueRedWhite1Server class
+
+// ------------------------------------------------------------------------- //
+
+/*
+  BlueRedWhite1Stats class
+
+  This class collects timing statistics for each stage of creating and drawing
+  icons, while the GUI is running, so we can see where the time goes without an
+  external profiler.  The most recent samples are kept in a circular buffer
+  and may be saved as a CSV file.  An optional overlay on the display shows the
+  last and average time for each stage, the cache hit rate, and paints per
+  second.  Nothing is collected unless <enabled> is true.
+*/
+
+class BlueRedWhite1Stats
+{
+  /* constants */
+
+  static final int STRIPES = BlueRedWhite1Listener.STRIPES; // stage numbers,
+  static final int PACK = 1;      // .. index into STAGE_NAMES; benchmark only
+  static final int CROP = BlueRedWhite1Listener.CROP;
+  static final int COMBINE = BlueRedWhite1Listener.COMBINE;
+  static final int MIRROR = BlueRedWhite1Listener.MIRROR;
+  static final int DRAW = 5;      // our own stage: GUI paints the image
+  static final String[] STAGE_NAMES = { "stripes", "pack", "crop", "combine",
+    "mirror", "draw" };
+
+  static final int AVERAGE_COUNT = 50; // samples per stage for average time
+  static final int SAMPLE_COUNT = 2000; // samples kept for CSV file
+
+  /* class variables */
+
+  static int cacheHits, cacheMisses; // lookups in the icon cache
+  static boolean enabled = false; // true if we collect statistics
+  static boolean overlay = false; // true if overlay shown on display
+
+  static long[] lastNanos = new long[STAGE_NAMES.length]; // most recent
+  static long[][] recentNanos = new long[STAGE_NAMES.length][AVERAGE_COUNT];
+  static int[] recentCount = new int[STAGE_NAMES.length]; // total per stage
+
+  static int sampleNext = 0;      // next index in circular buffer
+  static int sampleUsed = 0;      // number of samples in buffer
+  static int[] sampleHits = new int[SAMPLE_COUNT]; // cache hits at that time
+  static int[] sampleMisses = new int[SAMPLE_COUNT];
+  static long[] sampleNanos = new long[SAMPLE_COUNT]; // duration of stage
+  static int[] sampleSize = new int[SAMPLE_COUNT]; // icon size
+  static byte[] sampleStage = new byte[SAMPLE_COUNT]; // which stage
+  static long[] sampleTime = new long[SAMPLE_COUNT]; // clock time (millis)
+  static int[] sampleZoom = new int[SAMPLE_COUNT]; // zoom, or zero if none
+
+  static final BlueRedWhite1Listener listener = new BlueRedWhite1Listener()
+  {                               // installed on the GUI's renderer
+    public void cacheLookup(boolean hit)
+    {
+      recordCache(hit);
+    }
+    public void stageDone(int stage, long started, int size)
+    {
+      record(stage, started, size, 0);
+    }
+  };
+
+  /* empty constructor */
+
+  private BlueRedWhite1Stats() { }
+
+/*
+  averageNanos() method
+
+  Return the average time for one stage over its most recent samples, or zero
+  if there are no samples.
+*/
+  static synchronized long averageNanos(int stage)
+  {
+    int count = Math.min(recentCount[stage], AVERAGE_COUNT);
+    if (count == 0)
+      return(0);
+    long total = 0;
+    for (int i = 0; i < count; i ++)
+      total += recentNanos[stage][i];
+    return(total / count);
+  }
+
+/*
+  drawOverlay() method
+
+  Draw statistics in the top-left corner of the visible part of the panel, on
+  a partly transparent background so the icon still shows through.
+*/
+  static void drawOverlay(Graphics context, Rectangle visible)
+  {
+    String[] lines = new String[STAGE_NAMES.length + 2];
+    synchronized (BlueRedWhite1Stats.class)
+    {
+      for (int i = 0; i < STAGE_NAMES.length; i ++)
+        lines[i] = STAGE_NAMES[i] + ": last " + formatMillis(lastNanos[i])
+          + " ms, average " + formatMillis(averageNanos(i)) + " ms";
+      int lookups = cacheHits + cacheMisses;
+      lines[STAGE_NAMES.length] = "cache hits: " + ((lookups == 0) ? 0
+        : Math.round(cacheHits * 100.0 / lookups)) + "% of " + lookups;
+      lines[STAGE_NAMES.length + 1] = "paints per second: "
+        + paintsPerSecond();
+    }
+
+    context.setFont(new Font(BlueRedWhite1.SYSTEM_FONT, Font.PLAIN, 12));
+    FontMetrics metrics = context.getFontMetrics();
+    int lineHeight = metrics.getHeight(); // pixels per line of text
+    int width = 0;                // widest line of text
+    for (int i = 0; i < lines.length; i ++)
+      width = Math.max(width, metrics.stringWidth(lines[i]));
+
+    context.setColor(new Color(0, 0, 0, 160)); // partly transparent black
+    context.fillRect((visible.x + 4), (visible.y + 4), (width + 12),
+      ((lineHeight * lines.length) + 8));
+    context.setColor(Color.WHITE);
+    for (int i = 0; i < lines.length; i ++)
+      context.drawString(lines[i], (visible.x + 10), (visible.y + 8
+        + metrics.getAscent() + (i * lineHeight)));
+  }
+
+  /* format nanoseconds as milliseconds with three decimal places */
+
+  static String formatMillis(long nanos)
+  {
+    String text = String.valueOf((nanos + 500) / 1000); // microseconds
+    while (text.length() < 4)     // need at least "0.000"
+      text = "0" + text;
+    return(text.substring(0, (text.length() - 3)) + "."
+      + text.substring(text.length() - 3));
+  }
+
+/*
+  paintsPerSecond() method
+
+  Count the drawing samples in the last second.  The caller must already hold
+  our lock.
+*/
+  static int paintsPerSecond()
+  {
+    long since = System.currentTimeMillis() - 1000; // one second ago
+    int result = 0;
+    for (int i = 0; i < sampleUsed; i ++)
+    {
+      int index = (sampleNext - i - 1 + SAMPLE_COUNT) % SAMPLE_COUNT;
+      if (sampleTime[index] < since) // samples are in time order
+        break;
+      if (sampleStage[index] == DRAW)
+        result ++;
+    }
+    return(result);
+  }
+
+/*
+  record() method
+
+  Record the time for one stage, which started at <started> nanoseconds.  The
+  current time is returned so that the next stage can start from there.
+*/
+  static long record(int stage, long started, int size, int zoom)
+  {
+    long now = System.nanoTime(); // end of this stage
+    if (enabled == false)         // not collecting statistics
+      return(now);
+    long nanos = now - started;   // duration of this stage
+
+    synchronized (BlueRedWhite1Stats.class)
+    {
+      lastNanos[stage] = nanos;
+      recentNanos[stage][recentCount[stage] % AVERAGE_COUNT] = nanos;
+      recentCount[stage] ++;
+
+      sampleHits[sampleNext] = cacheHits;
+      sampleMisses[sampleNext] = cacheMisses;
+      sampleNanos[sampleNext] = nanos;
+      sampleSize[sampleNext] = size;
+      sampleStage[sampleNext] = (byte) stage;
+      sampleTime[sampleNext] = System.currentTimeMillis();
+      sampleZoom[sampleNext] = zoom;
+      sampleNext = (sampleNext + 1) % SAMPLE_COUNT;
+      sampleUsed = Math.min((sampleUsed + 1), SAMPLE_COUNT);
+    }
+    return(now);
+  }
+
+  /* count one lookup in the icon cache; no lock unless collecting */
+
+  static void recordCache(boolean hit)
+  {
+    if (enabled == false)         // not collecting statistics
+      return;
+    synchronized (BlueRedWhite1Stats.class)
+    {
+      if (hit)
+        cacheHits ++;
+      else
+        cacheMisses ++;
+    }
+  }
+
+/*
+  writeCsvFile() method
+
+  Write the samples we have as a CSV file, oldest first.  Cache hits and misses
+  are running totals at the time of each sample.
+*/
+  static void writeCsvFile(File file) throws IOException
+  {
+    PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(
+      file)));
+    writer.println("time_ms,stage,size,zoom,nanos,cache_hits,cache_misses");
+    synchronized (BlueRedWhite1Stats.class)
+    {
+      for (int i = sampleUsed; i > 0; i --)
+      {
+        int index = (sampleNext - i + SAMPLE_COUNT) % SAMPLE_COUNT;
+        writer.println(sampleTime[index] + "," + STAGE_NAMES[sampleStage[index]]
+          + "," + sampleSize[index] + "," + sampleZoom[index] + ","
+          + sampleNanos[index] + "," + sampleHits[index] + ","
+          + sampleMisses[index]);
+      }
+    }
+    writer.close();
+    if (writer.checkError())      // PrintWriter doesn't throw exceptions
+      throw new IOException("error writing file");
+  }
+
+} // end of BlueRedWhite1Stats class
+
+// ------------------------------------------------------------------------- //
+
+/*
+  BlueRedWhite1Svg class
+
+  This class writes an icon as a Scalable Vector Graphics (SVG) file.  Only the
+  top-left quadrant is described, and the other three quadrants are <use>
+  references with a mirror transform.  Blue stripes and red stripes are two
+  separate paths with no color of their own, so each <use> gives them a color,
+  which is how two of the mirror copies have blue and red inverted.
+
+  There are two kinds of file.  The vector kind has one L-shaped outline for
+  each stripe, calculated from the parameters, and a rounded rectangle for the
+  border and corners.  It looks good at any size, and the file only grows
+  with the number of stripes, not the number of pixels.  The pixel kind has
+  one rectangle for each run of same-colored pixels in a group of identical
+  rows, taken from the drawing code, so it matches the PNG exactly (gray
+  pixels and all), but grows with the size.  That is best for small icons.
+*/
+
+class BlueRedWhite1Svg
+{
+  /* class variables */
+
+  static int svgMode = 0;         // 0 for PNG, 1 for vector, 2 for pixels
+
+  /* empty constructor */
+
+  private BlueRedWhite1Svg() { }
+
+/*
+  addPixelPaths() method
+
+  Add one rectangle for each run of blue, red, or gray pixels to the paths,
+  from the top-left quadrant created by the drawing code.  Rows that are the
+  same as the row above are joined, so stripes going across are one rectangle
+  each, no matter how many rows high they are.
+*/
+  static void addPixelPaths(BlueRedWhite1Spec spec, StringBuffer bluePath,
+    StringBuffer redPath, StringBuffer grayPath)
+  {
+    int size = spec.getSize();    // width of full row
+    int half = size / 2;          // width and height of quadrant
+    BlueRedWhite1Quad quad = BlueRedWhite1Batch.renderer.getQuad(spec);
+    byte[] row = new byte[size];  // current row (full width from getRow)
+    byte[] group = new byte[size]; // first row of current group
+    int groupStart = 0;           // row number where group started
+
+    quad.getRow(0, group, 0);
+    for (int k = 1; k <= half; k ++) // one past the end finishes last group
+    {
+      if (k < half)
+      {
+        quad.getRow(k, row, 0);
+        boolean same = true;      // is this row the same as the group?
+        for (int i = 0; same && (i < half); i ++)
+          same = (row[i] == group[i]);
+        if (same)                 // yes, just make the group taller
+          continue;
+      }
+
+      int i = 0;                  // column in quadrant
+      while (i < half)            // each run in the group's first row
+      {
+        byte color = group[i];
+        int start = i;
+        while ((i < half) && (group[i] == color))
+          i ++;
+        StringBuffer path = (color == BlueRedWhite1Quad.BLUE) ? bluePath
+          : (color == BlueRedWhite1Quad.RED) ? redPath
+          : (color == BlueRedWhite1Quad.GRAY) ? grayPath : null;
+        if (path != null)         // white is the background, not drawn
+          path.append("M" + start + " " + groupStart + "h" + (i - start)
+            + "v" + (k - groupStart) + "h-" + (i - start) + "z");
+      }
+      byte[] temp = group;        // this row starts the next group
+      group = row;
+      row = temp;
+      groupStart = k;
+    }
+  } // end of addPixelPaths() method
+
+/*
+  addVectorPaths() method
+
+  Add one L-shaped outline for each stripe to the blue and red paths.  A
+  stripe has a horizontal part across the full width up to its inside edge,
+  and a vertical part above that, the same as the rectangles in the original
+  drawing code.  Stripes never overlap, so their order doesn't matter.
+*/
+  static void addVectorPaths(BlueRedWhite1Spec spec, StringBuffer bluePath,
+    StringBuffer redPath)
+  {
+    int half = spec.getSize() / 2; // width and height of quadrant
+    int offset = spec.getWhite() / 2; // same loop as fillStripeRow()
+    boolean flipFlag = false;     // false for blue, true for red
+    while (offset < half)
+    {
+      int inner = half - offset;  // inside edge of this stripe
+      int outer = Math.max(0, (inner - spec.getRed())); // outside, cropped
+      (flipFlag ? redPath : bluePath).append("M" + outer + " 0H" + inner
+        + "V" + inner + "H0V" + outer + "H" + outer + "z");
+      flipFlag = ! flipFlag;
+      offset += spec.getRed() + spec.getWhite();
+    }
+  }
+
+/*
+  createSvg() method
+
+  Return the complete SVG file as text.  <pixelFlag> is true for the pixel
+  kind of file, or false for the vector kind.
+*/
+  static String createSvg(BlueRedWhite1Spec spec, boolean pixelFlag)
+  {
+    int size = spec.getSize();    // width and height of icon
+    StringBuffer bluePath = new StringBuffer(); // blue in top-left quadrant
+    StringBuffer grayPath = new StringBuffer(); // crop, pixel kind only
+    StringBuffer redPath = new StringBuffer(); // red in top-left quadrant
+    if (pixelFlag)
+      addPixelPaths(spec, bluePath, redPath, grayPath);
+    else
+      addVectorPaths(spec, bluePath, redPath);
+
+    String blue = "#" + hexColor(BlueRedWhite1Render.OUR_BLUE);
+    String gray = "#" + hexColor(BlueRedWhite1Render.OUR_GRAY);
+    String red = "#" + hexColor(BlueRedWhite1Render.OUR_RED);
+    String[] mirrors = { "", // top-left, as drawn
+      " transform=\"matrix(-1 0 0 1 " + size + " 0)\"", // top-right
+      " transform=\"matrix(1 0 0 -1 0 " + size + ")\"", // bottom-left
+      " transform=\"matrix(-1 0 0 -1 " + size + " " + size + ")\"" };
+                                  // bottom-right, same colors as top-left
+
+    StringBuffer result = new StringBuffer();
+    result.append("<?xml version=\"1.0\" encoding=\"US-ASCII\"?>\n");
+    result.append("<svg xmlns=\"http://www.w3.org/2000/svg\""
+      + " xmlns:xlink=\"http://www.w3.org/1999/xlink\" width=\"" + size
+      + "\" height=\"" + size + "\" viewBox=\"0 0 " + size + " " + size
+      + "\"" + (pixelFlag ? " shape-rendering=\"crispEdges\"" : "")
+      + ">\n");
+    result.append("<!-- " + BlueRedWhite1.PROGRAM_TITLE + ": " + spec
+      + " -->\n");
+    result.append("<defs>\n<path id=\"a\" d=\"" + bluePath + "\"/>\n"
+      + "<path id=\"b\" d=\"" + redPath + "\"/>\n");
+    if (pixelFlag)                // crop is already in the pixels
+      result.append("<path id=\"g\" d=\"" + grayPath + "\"/>\n");
+    else                          // crop is a rounded rectangle
+    {
+      int border = spec.getBorder(); // width of gray border
+      int radius = (int) Math.round(spec.getCurve() * ((size / 2) - border)
+        / 100.0);                 // same radius as cropSpans()
+      result.append("<clipPath id=\"c\"><rect x=\"" + border + "\" y=\""
+        + border + "\" width=\"" + (size - (2 * border)) + "\" height=\""
+        + (size - (2 * border)) + "\" rx=\"" + radius + "\" ry=\"" + radius
+        + "\"/></clipPath>\n");
+    }
+    result.append("</defs>\n");
+
+    result.append("<rect width=\"" + size + "\" height=\"" + size
+      + "\" fill=\"" + (pixelFlag ? "#FFFFFF" : gray) + "\"/>\n");
+    if (pixelFlag == false)       // white inside the crop, gray outside
+      result.append("<g clip-path=\"url(#c)\">\n<rect width=\"" + size
+        + "\" height=\"" + size + "\" fill=\"#FFFFFF\"/>\n");
+    for (int i = 0; i < mirrors.length; i ++)
+    {
+      boolean invert = (i == 1) || (i == 2); // blue and red swap places
+      result.append("<use xlink:href=\"#a\" fill=\"" + (invert ? red : blue)
+        + "\"" + mirrors[i] + "/>");
+      result.append("<use xlink:href=\"#b\" fill=\"" + (invert ? blue : red)
+        + "\"" + mirrors[i] + "/>");
+      if (pixelFlag)
+        result.append("<use xlink:href=\"#g\" fill=\"" + gray + "\""
+          + mirrors[i] + "/>");
+      result.append("\n");
+    }
+    if (pixelFlag == false)
+      result.append("</g>\n");
+    result.append("</svg>\n");
+    return(result.toString());
+
+  } // end of createSvg() method
+
+  /* RGB color as six hexadecimal digits */
+
+  static String hexColor(int rgb)
+  {
+    String text = Integer.toHexString(rgb & 0xFFFFFF).toUpperCase();
+    while (text.length() < 6)
+      text = "0" + text;
+    return(text);
+  }
+
+  /* write one SVG file */
+
+  static void writeSvg(BlueRedWhite1Spec spec, boolean pixelFlag, File file)
+    throws IOException
+  {
+    Writer writer = new OutputStreamWriter(new FileOutputStream(file),
+      "US-ASCII");
+    try { writer.write(createSvg(spec, pixelFlag)); }
+    finally { writer.close(); }
+  }
+
+} // end of BlueRedWhite1Svg class
+
+// ------------------------------------------------------------------------- //
+
+/*
+  BlueRedWhite1Tiles class
+
+  This class creates tile images for the comparison grid (see
+  BlueRedWhite1Compare) on a small pool of background threads.  The panel
+  gives us the list of visible tiles that aren't finished, in the order it
+  wants them, and each new list replaces the old one, so tiles that have been
+  scrolled out of view are never created.  Finished tiles are kept in a cache
+  by their parameters, so scrolling back to an earlier tile is cheap, and the
+  compact icons come from the same renderer as the single icon view.  Nothing
+  here is a Swing component; the GUI is only told when a tile is ready.
+*/
+
+class BlueRedWhite1Tiles implements Runnable
+{
+  /* constants */
+
+  static final int CACHE_BYTES = 32 * 1024 * 1024; // plus visible tiles
+
+  /* class variables */
+
+  static BlueRedWhite1Cache imageCache = new BlueRedWhite1Cache(CACHE_BYTES);
+                                  // finished tiles ready to draw
+  static LinkedList<BlueRedWhite1Spec> wanted =
+    new LinkedList<BlueRedWhite1Spec>(); // visible tiles not yet created,
+                                  // .. in the order to create them
+  static Thread[] workerThreads = null; // background threads, on demand
+  static HashSet<BlueRedWhite1Spec> working =
+    new HashSet<BlueRedWhite1Spec>(); // tiles being created right now
+
+  /* empty constructor */
+
+  private BlueRedWhite1Tiles() { }
+
+  /* forget all wanted tiles; tiles being created are still finished */
+
+  static synchronized void cancel()
+  {
+    wanted.clear();
+  }
+
+  /* return a finished tile image, or null if we don't have it yet */
+
+  static BufferedImage getImage(BlueRedWhite1Spec spec)
+  {
+    return((BufferedImage) imageCache.get(spec));
+  }
+
+/*
+  request() method
+
+  Replace the list of tiles wanted by the background threads.  Tiles already
+  being created are left out, so no tile is created twice.  The threads are
+  started the first time they are needed.
+*/
+  static synchronized void request(LinkedList<BlueRedWhite1Spec> list)
+  {
+    list.removeAll(working);      // don't create the same tile twice
+    wanted = list;                // newest request replaces all older ones
+    if (workerThreads == null)    // first request starts background threads
+    {
+      workerThreads = new Thread[Math.max(1, BlueRedWhite1Batch.threadCount)];
+      for (int i = 0; i < workerThreads.length; i ++)
+      {
+        workerThreads[i] = new Thread(new BlueRedWhite1Tiles(),
+          ("BlueRedWhite1Tiles-" + i));
+        workerThreads[i].setDaemon(true); // don't prevent application exit
+        workerThreads[i].start();
+      }
+    }
+    BlueRedWhite1Tiles.class.notifyAll(); // wake up background threads
+  }
+
+/*
+  run() method
+
+  Background thread: take the next wanted tile, create its image, and tell the
+  GUI to draw it.  Several threads run this at the same time.
+*/
+  public void run()
+  {
+    while (true)
+    {
+      final BlueRedWhite1Spec spec; // parameters for next tile
+      synchronized (BlueRedWhite1Tiles.class)
+      {
+        while (wanted.isEmpty())
+        {
+          try { BlueRedWhite1Tiles.class.wait(); }
+          catch (InterruptedException ie) { /* ignore */ }
+        }
+        spec = wanted.removeFirst();
+        working.add(spec);        // so it isn't requested again meanwhile
+      }
+
+      BlueRedWhite1Quad quad = BlueRedWhite1Batch.renderer.getQuad(spec);
+      if (quad != null)           // null only if interrupted
+        imageCache.put(spec, quad.toImage());
+      synchronized (BlueRedWhite1Tiles.class)
+      {
+        working.remove(spec);
+      }
+
+      SwingUtilities.invokeLater(new Runnable()
+      {
+        public void run()         // on GUI thread, draw finished tile
+        {
+          BlueRedWhite1.compareCanvas.repaintTile(spec);
+        }
+      });
+    }
+  } // end of run() method
+
+/*
+  setVisibleBytes() method
+
+  Make room in the cache for all visible tiles, <bytes> at one byte per pixel,
+  plus CACHE_BYTES for tiles that have been scrolled out of view.
+*/
+  static void setVisibleBytes(long bytes)
+  {
+    imageCache.setLimit(CACHE_BYTES + bytes);
+  }
+
+} // end of BlueRedWhite1Tiles class
+
+// ------------------------------------------------------------------------- //
+
+/*
+  BlueRedWhite1User class
+
+  This class listens to input from the user: menu items and sliders.
+*/
+
+class BlueRedWhite1User implements ActionListener, ChangeListener
+{
+  /* empty constructor */
+
+  public BlueRedWhite1User() { }
+
+  /* action listener for menu items */
+
+  public void actionPerformed(ActionEvent event)
+  {
+    Object source = event.getSource(); // where the event came from
+    if (source == BlueRedWhite1.menuCompare) // "Compare Grid" menu item
+    {
+      if (BlueRedWhite1.menuCompare.isSelected()
+        && (BlueRedWhite1Compare.askRanges() == false))
+      {
+        BlueRedWhite1.menuCompare.setSelected(false); // user cancelled
+      }
+      BlueRedWhite1.outputPane.setViewportView(
+        BlueRedWhite1.menuCompare.isSelected() ? (JPanel)
+        BlueRedWhite1.compareCanvas : (JPanel) BlueRedWhite1.outputCanvas);
+      updateIconImage(false);     // whichever view is now shown
+    }
+    else if (source == BlueRedWhite1.menuCopy) // "Copy Image" menu item
+    {
+      copyImage(1);               // same size as icon
+    }
+    else if (source == BlueRedWhite1.menuExit) // "Exit (Close)" menu item
+    {
+      System.exit(0);             // immediate exit from GUI with no status
+    }
+    else if (source == BlueRedWhite1.menuIcon) // "Save Icon File" menu item
+    {
+      saveIconFile();
+    }
+    else if (source == BlueRedWhite1.menuZoom) // "Copy Zoomed" menu item
+    {
+      copyImage(BlueRedWhite1.zoomSlider.getValue()); // same as display
+    }
+    else if (source == BlueRedWhite1.menuOverlay) // "Show Overlay" menu item
+    {
+      BlueRedWhite1Stats.overlay = BlueRedWhite1.menuOverlay.isSelected();
+      BlueRedWhite1.outputPane.getViewport().setScrollMode(
+        BlueRedWhite1Stats.overlay ? JViewport.SIMPLE_SCROLL_MODE
+        : JViewport.BLIT_SCROLL_MODE); // overlay doesn't scroll with icon
+      BlueRedWhite1.outputCanvas.repaint();
+    }
+    else if (source == BlueRedWhite1.menuStats) // "Save CSV File" menu item
+    {
+      saveStatsFile();
+    }
+    else                          // fault in program logic, not by user
+    {
+      System.err.println("Error in actionPerformed(): unknown ActionEvent: "
+        + event);                 // should never happen, so write on console
+    }
+  } // end of actionPerformed() method
+
+  /* change listener for sliders */
+
+  public void stateChanged(ChangeEvent event)
+  {
+    Object source = event.getSource(); // where the event came from
+    if (source == BlueRedWhite1.borderSlider)
+    {
+      BlueRedWhite1.borderValue.setText(String.valueOf(BlueRedWhite1
+        .borderSlider.getValue()));
+      updateIconImage(BlueRedWhite1.borderSlider.getValueIsAdjusting());
+                                  // new parameters need a new image
+    }
+    else if (source == BlueRedWhite1.curveSlider)
+    {
+      BlueRedWhite1.curveValue.setText(String.valueOf(BlueRedWhite1
+        .curveSlider.getValue()));
+      updateIconImage(BlueRedWhite1.curveSlider.getValueIsAdjusting());
+    }
+    else if (source == BlueRedWhite1.redSlider)
+    {
+      BlueRedWhite1.redValue.setText(String.valueOf(BlueRedWhite1
+        .redSlider.getValue()));
+      updateIconImage(BlueRedWhite1.redSlider.getValueIsAdjusting());
     }
     else if (source == BlueRedWhite1.sizeSlider)
     {
       BlueRedWhite1.sizeValue.setText(String.valueOf(BlueRedWhite1
         .sizeSlider.getValue()));
       updateCanvasSize();         // may need to change scroll bars
-      BlueRedWhite1.outputCanvas.repaint();
+      updateIconImage(BlueRedWhite1.sizeSlider.getValueIsAdjusting());
     }
     else if (source == BlueRedWhite1.whiteSlider)
     {
       BlueRedWhite1.whiteValue.setText(String.valueOf(BlueRedWhite1
         .whiteSlider.getValue()));
-      BlueRedWhite1.outputCanvas.repaint();
+      updateIconImage(BlueRedWhite1.whiteSlider.getValueIsAdjusting());
     }
     else if (source == BlueRedWhite1.zoomSlider)
     {
       BlueRedWhite1.zoomValue.setText(String.valueOf(BlueRedWhite1
         .zoomSlider.getValue()));
       updateCanvasSize();         // may need to change scroll bars
-      BlueRedWhite1.outputCanvas.repaint();
+      BlueRedWhite1.outputCanvas.setZoom(BlueRedWhite1.zoomSlider
+        .getValue());
     }
     else                          // fault in program logic, not by user
     {
@@ -498,6 +3506,89 @@ class BlueRedWhite1User implements ActionListener, ChangeListener
     }
   } // end of stateChanged() method
 
+  /* put icon parameters on clipboard; image is created when pasted */
+
+  static void copyImage(int scale)
+  {
+    BlueRedWhite1Spec spec = getSpec(); // parameters from sliders
+    if ((spec.getSize() * scale) > BlueRedWhite1Render.MAX_SIZE)
+    {
+      JOptionPane.showMessageDialog(BlueRedWhite1.mainFrame,
+        ("Zoomed image would be too big for clipboard:\n" + (spec.getSize()
+        * scale) + " pixels is more than " + BlueRedWhite1Render.MAX_SIZE));
+      return;
+    }
+    try                           // clipboard may not be available
+    {
+      Toolkit.getDefaultToolkit().getSystemClipboard().setContents(
+        new BlueRedWhite1Clip(spec, scale), null); // place notice on clipboard
+    }
+    catch (IllegalStateException ise)
+    {
+      JOptionPane.showMessageDialog(BlueRedWhite1.mainFrame,
+        ("Can't put image on clipboard:\n" + ise.getMessage()));
+    }
+  }
+
+  /* get icon parameters from current slider values */
+
+  static BlueRedWhite1Spec getSpec()
+  {
+    return(new BlueRedWhite1Spec(BlueRedWhite1.sizeSlider.getValue(),
+      BlueRedWhite1.borderSlider.getValue(),
+      BlueRedWhite1.curveSlider.getValue(),
+      BlueRedWhite1.whiteSlider.getValue(),
+      BlueRedWhite1.redSlider.getValue()));
+  }
+
+  /* ask user for a file name, then write icon file with all sizes */
+
+  static void saveIconFile()
+  {
+    JFileChooser chooser = new JFileChooser();
+    chooser.setDialogTitle("Save Icon File");
+    chooser.setSelectedFile(new File("BlueRedWhite1.ico"));
+    if (chooser.showSaveDialog(BlueRedWhite1.mainFrame)
+      != JFileChooser.APPROVE_OPTION)
+    {
+      return;                     // user cancelled dialog box
+    }
+    File file = chooser.getSelectedFile();
+    try
+    {
+      BlueRedWhite1Icon.writeIconFile(file, getSpec());
+    }
+    catch (IOException ioe)
+    {
+      JOptionPane.showMessageDialog(BlueRedWhite1.mainFrame,
+        ("Can't write icon file:\n" + ioe.getMessage()));
+    }
+  }
+
+  /* ask user for a file name, then write timing statistics */
+
+  static void saveStatsFile()
+  {
+    JFileChooser chooser = new JFileChooser();
+    chooser.setDialogTitle("Save CSV File");
+    chooser.setSelectedFile(new File("BlueRedWhite1.csv"));
+    if (chooser.showSaveDialog(BlueRedWhite1.mainFrame)
+      != JFileChooser.APPROVE_OPTION)
+    {
+      return;                     // user cancelled dialog box
+    }
+    File file = chooser.getSelectedFile();
+    try
+    {
+      BlueRedWhite1Stats.writeCsvFile(file);
+    }
+    catch (IOException ioe)
+    {
+      JOptionPane.showMessageDialog(BlueRedWhite1.mainFrame,
+        ("Can't write CSV file:\n" + ioe.getMessage()));
+    }
+  }
+
   /* update canvas size inside scroll pane */
 
   static void updateCanvasSize()
@@ -508,6 +3599,219 @@ class BlueRedWhite1User implements ActionListener, ChangeListener
     BlueRedWhite1.outputCanvas.invalidate(); // recheck layout
   }
 
+  /* update icon image (or grid) from current slider values, in background */
+
+  static void updateIconImage(boolean preview)
+  {
+    if (BlueRedWhite1.menuCompare.isSelected()) // comparison grid is shown
+      BlueRedWhite1Compare.updateGrid(getSpec()); // only visible tiles
+                                  // .. are created
+    else
+      BlueRedWhite1Worker.request(getSpec(), preview); // doesn't wait
+  }
+
 } // end of BlueRedWhite1User class
 
+// ------------------------------------------------------------------------- //
+
+/*
+  BlueRedWhite1View class
+
+  This class draws an icon image into any graphics context, the way the main
+  display shows it: centered, zoomed by whole pixels, and clipped.  It is not a
+  Swing component, so the benchmark (see BlueRedWhite1Bench) can time the same
+  drawing on an off-screen image without loading Swing.
+*/
+
+class BlueRedWhite1View
+{
+  /* empty constructor */
+
+  private BlueRedWhite1View() { }
+
+/*
+  drawIcon() method
+
+  Put our icon image onto the user's display, centered in the panel.  When
+  zoomed in, the panel may be much bigger than the part that is visible in the
+  scroll pane.  Find which pixels in the icon image are inside the clipping
+  rectangle, and scale only those pixels.  The cost then depends upon the size
+  of the viewport, not the size of the zoomed image.
+*/
+  static void drawIcon(Graphics context, BufferedImage image, int iconSize,
+    int zoom, int panelWidth, int panelHeight)
+  {
+    int centerHeight = panelHeight / 2; // middle of the icon (from panel top)
+    int centerWidth = panelWidth / 2; // middle from panel left
+    int zoomSize = iconSize * zoom; // image may be smaller (preview)
+    int zoomSizeHalf = zoomSize / 2; // need to center image
+    int left = centerWidth - zoomSizeHalf; // where image starts on panel
+    int top = centerHeight - zoomSizeHalf;
+
+    Rectangle clip = context.getClipBounds(); // what needs to be painted
+    if (clip == null)             // no clipping means paint everything
+      clip = new Rectangle(0, 0, panelWidth, panelHeight);
+    int firstX = Math.max(0, floorDiv((clip.x - left), zoom));
+    int firstY = Math.max(0, floorDiv((clip.y - top), zoom));
+    int lastX = Math.min(iconSize, (floorDiv((clip.x + clip.width - left - 1),
+      zoom) + 1));                // one past last visible pixel
+    int lastY = Math.min(iconSize, (floorDiv((clip.y + clip.height - top - 1),
+      zoom) + 1));
+
+    if (context instanceof Graphics2D) // scale by copying whole pixels
+      ((Graphics2D) context).setRenderingHint(
+        RenderingHints.KEY_INTERPOLATION,
+        RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+    if (image.getWidth() != iconSize) // small preview while slider moves
+    {
+      context.drawImage(image, left, top, zoomSize, zoomSize, null);
+    }
+    else if ((firstX < lastX) && (firstY < lastY)) // is any part visible?
+    {
+      context.drawImage(image, (left + (firstX * zoom)),
+        (top + (firstY * zoom)), (left + (lastX * zoom)),
+        (top + (lastY * zoom)), firstX, firstY, lastX, lastY, null);
+    }
+
+    context.setColor(Color.GRAY); // thin gray border around icon
+    context.drawRect((left - 1), (top - 1), (zoomSize + 1), (zoomSize + 1));
+
+  } // end of drawIcon() method
+
+  /* integer division that rounds down, even for negative numbers */
+
+  static int floorDiv(int dividend, int divisor)
+  {
+    int result = dividend / divisor; // Java rounds toward zero
+    if (((dividend % divisor) != 0) && ((dividend < 0) != (divisor < 0)))
+      result --;
+    return(result);
+  }
+
+} // end of BlueRedWhite1View class
+
+// ------------------------------------------------------------------------- //
+
+/*
+  BlueRedWhite1Worker class
+
+  This class creates icon images for the GUI on a background thread, so that
+  moving a slider never waits for an image on the event dispatch thread.  Only
+  the most recent request is kept: bursts of slider changes collapse into one
+  image, and an image that is being created when a newer request arrives is
+  cancelled (interrupted).  While a slider is being dragged, a small preview is
+  created instead, and the full image follows when the slider is released.
+*/
+
+class BlueRedWhite1Worker implements Runnable
+{
+  /* constants */
+
+  static final int PREVIEW_SIZE = 128; // largest preview image (pixels)
+
+  /* class variables */
+
+  static boolean busy = false;    // true while creating an image
+  static int generation = 0;      // incremented for each new request
+  static boolean pendingPreview;  // true if pending request is preview only
+  static BlueRedWhite1Spec pendingSpec = null; // most recent request, if any
+  static int shownGeneration = 0; // newest request shown on screen (GUI only)
+  static Thread workerThread = null; // background thread, started on demand
+
+  /* empty constructor */
+
+  private BlueRedWhite1Worker() { }
+
+/*
+  getPreviewSpec() method
+
+  Return parameters for a smaller version of an icon, scaled down by a whole
+  number so that it is no bigger than PREVIEW_SIZE.  Small icons are returned
+  unchanged.
+*/
+  static BlueRedWhite1Spec getPreviewSpec(BlueRedWhite1Spec spec)
+  {
+    int scale = (spec.getSize() + PREVIEW_SIZE - 1) / PREVIEW_SIZE; // round up
+    if (scale <= 1)               // already small enough
+      return(spec);
+    return(new BlueRedWhite1Spec((spec.getSize() / scale), (spec.getBorder()
+      / scale), spec.getCurve(), (spec.getWhite() / scale), (spec.getRed()
+      / scale)));
+  }
+
+/*
+  request() method
+
+  Ask for a new icon image.  Any earlier request that hasn't been finished is
+  replaced.  This is called from the GUI and doesn't wait for the image.
+*/
+  static synchronized void request(BlueRedWhite1Spec spec, boolean preview)
+  {
+    generation ++;                // newest request wins
+    pendingPreview = preview;
+    pendingSpec = spec;
+    if (workerThread == null)     // first request starts background thread
+    {
+      workerThread = new Thread(new BlueRedWhite1Worker(), "BlueRedWhite1");
+      workerThread.setDaemon(true); // don't prevent application from exiting
+      workerThread.start();
+    }
+    else if (busy)                // cancel image that is no longer wanted
+      workerThread.interrupt();
+    BlueRedWhite1Worker.class.notifyAll(); // wake up background thread
+  }
+
+/*
+  run() method
+
+  Background thread: wait for a request, create the image, and hand it to the
+  GUI.  An image that was cancelled is thrown away, and we go get the newer
+  request.
+*/
+  public void run()
+  {
+    while (true)
+    {
+      final int myGeneration;     // which request we are working on
+      boolean preview;            // true if preview only
+      BlueRedWhite1Spec spec;     // parameters for image
+
+      synchronized (BlueRedWhite1Worker.class)
+      {
+        busy = false;             // waiting, so nothing to cancel
+        while (pendingSpec == null)
+        {
+          try { BlueRedWhite1Worker.class.wait(); }
+          catch (InterruptedException ie) { /* ignore */ }
+        }
+        myGeneration = generation;
+        preview = pendingPreview;
+        spec = pendingSpec;
+        pendingSpec = null;       // request has been taken
+        busy = true;
+        Thread.interrupted();     // clear cancels meant for older requests
+      }
+
+      final BufferedImage image = BlueRedWhite1Batch.renderer.getImage(preview
+        ? getPreviewSpec(spec) : spec);
+      if (image == null)          // cancelled by newer request
+        continue;
+
+      final int size = spec.getSize(); // full size, even for preview
+      SwingUtilities.invokeLater(new Runnable()
+      {
+        public void run()         // on GUI thread, show new image
+        {
+          if (myGeneration > shownGeneration) // never go backwards
+          {
+            shownGeneration = myGeneration;
+            BlueRedWhite1.outputCanvas.setIcon(image, size);
+          }
+        }
+      });
+    }
+  } // end of run() method
+
+} // end of BlueRedWhite1Worker class
+
 /* Copyright (c) 2022 by Keith Fenske.  Apache License or GNU GPL. */
@@ -0,0 +1,105 @@
+/*
+  Blue Red White #1 - Cache by Total Bytes
+  Written by: Keith Fenske, http://kwfenske.github.io/
+  Copyright (c) 2022 by Keith Fenske.  Apache License or GNU GPL.
+*/
+
+package blueredwhite1;
+
+import java.awt.image.*;          // buffered images
+import java.util.*;               // hash maps
+
+/*
+  BlueRedWhite1Cache class
+
+  This class remembers recent results (icons, stripe layers, crop masks,
+  images) by their parameters, limited by the total number of bytes.  The
+  least-recently used entries are discarded first.  The newest entry is always
+  kept, even if it is too big by itself, so the caller gets back what it just
+  created.  All methods are synchronized, so one cache may be shared by
+  several threads.
+*/
+
+public class BlueRedWhite1Cache
+{
+  /* instance variables */
+
+  long limit;                     // maximum bytes in cached values
+  LinkedHashMap<Object, Object> map; // least-recently used (LRU) order
+  long used;                      // total bytes in cached values
+
+  /* class constructor */
+
+  public BlueRedWhite1Cache(long limit)
+  {
+    this.limit = limit;
+    this.map = new LinkedHashMap<Object, Object>(16, 0.75f, true);
+    this.used = 0;
+  }
+
+  /* return the cached value for a key, or null if we don't have one */
+
+  public synchronized Object get(Object key)
+  {
+    return(map.get(key));
+  }
+
+/*
+  put() method
+
+  Remember a value for a key, and return the value that should be used.  If
+  another thread already stored a value for the same key, that value is kept
+  and returned instead, so all callers share one copy.
+*/
+  public synchronized Object put(Object key, Object value)
+  {
+    Object result = map.get(key);
+    if (result != null)           // another thread beat us here
+      return(result);
+    map.put(key, value);
+    used += sizeOf(value);
+    trim();                       // discard oldest values if over limit
+    return(value);
+
+  } // end of put() method
+
+  /* change the maximum bytes, discarding the oldest values if now over */
+
+  public synchronized void setLimit(long limit)
+  {
+    this.limit = limit;
+    trim();
+  }
+
+  /* discard the oldest values until the cache is within its limit */
+
+  void trim()
+  {
+    Iterator<Object> list = map.values().iterator(); // oldest first
+    while ((used > limit) && (map.size() > 1))
+    {
+      used -= sizeOf(list.next());
+      list.remove();
+    }
+  }
+
+  /* approximate bytes used by one cached value */
+
+  static long sizeOf(Object value)
+  {
+    if (value instanceof byte[])
+      return(((byte[]) value).length);
+    else if (value instanceof int[])
+      return(((int[]) value).length * 4L);
+    else if (value instanceof BlueRedWhite1Quad)
+      return(((BlueRedWhite1Quad) value).bits.length);
+    else if (value instanceof BufferedImage) // one byte per pixel (indexed)
+      return(((BufferedImage) value).getWidth() * (long) ((BufferedImage)
+        value).getHeight());
+    else
+      return(0);
+  }
+
+} // end of BlueRedWhite1Cache class
+
+/* Copyright (c) 2022 by Keith Fenske.  Apache License or GNU GPL. */
@@ -0,0 +1,39 @@
+/*
+  Blue Red White #1 - Renderer Statistics Hook
+  Written by: Keith Fenske, http://kwfenske.github.io/
+  Copyright (c) 2022 by Keith Fenske.  Apache License or GNU GPL.
+*/
+
+package blueredwhite1;
+
+/*
+  BlueRedWhite1Listener interface
+
+  A renderer with a listener (see BlueRedWhite1Render.setListener) calls it
+  after each stage of creating an icon, and after each lookup in its icon
+  cache.  A renderer without a listener doesn't time anything.  Calls come from
+  whichever thread is creating the icon, possibly several at once, so the
+  listener must do its own locking, and should return quickly.
+*/
+
+public interface BlueRedWhite1Listener
+{
+  /* constants: stage numbers for stageDone(), with gaps the caller may use
+  for its own stages (see BlueRedWhite1Stats in the GUI) */
+
+  int STRIPES = 0;                // draw and pack the stripe layer
+  int CROP = 2;                   // find the crop mask
+  int COMBINE = 3;                // gray crop over the stripes
+  int MIRROR = 4;                 // full image from the compact form
+
+  /* one lookup in the icon cache, found or not */
+
+  void cacheLookup(boolean hit);
+
+  /* one stage finished: <started> is from System.nanoTime() */
+
+  void stageDone(int stage, long started, int size);
+
+} // end of BlueRedWhite1Listener interface
+
+/* Copyright (c) 2022 by Keith Fenske.  Apache License or GNU GPL. */
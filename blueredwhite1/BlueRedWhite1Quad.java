@@ -0,0 +1,272 @@
+/*
+  Blue Red White #1 - Icon in Compact Form
+  Written by: Keith Fenske, http://kwfenske.github.io/
+  Copyright (c) 2022 by Keith Fenske.  Apache License or GNU GPL.
+*/
+
+package blueredwhite1;
+
+import java.awt.image.*;          // buffered images
+import java.util.*;               // arrays
+
+/*
+  BlueRedWhite1Quad class
+
+  This class holds a finished icon in compact form.  An icon only has four
+  colors (white, gray, blue, red), and three of the four quadrants are mirror
+  copies of the top-left quadrant, with blue and red inverted in two of them.
+  We keep only the top-left quadrant, packed at two bits per pixel.  That is
+  1/64 of the memory for a full image with 32-bit pixels, so many more icons
+  fit in a cache.  A full image with an indexed color model is created only
+  when needed for display or export.
+*/
+
+public class BlueRedWhite1Quad
+{
+  /* constants */
+
+  public static final byte WHITE = 0; // color indexes in palette
+  public static final byte GRAY = 1;
+  public static final byte BLUE = 2;
+  public static final byte RED = 3;
+  static final byte GRAY_BYTE = 0x55; // four gray pixels packed in one byte
+
+  static final int[] COLORS = { 0xFFFFFF, BlueRedWhite1Render.OUR_GRAY,
+    BlueRedWhite1Render.OUR_BLUE, BlueRedWhite1Render.OUR_RED }; // RGB
+  static final byte[] SWAP = { WHITE, GRAY, RED, BLUE }; // invert blue, red
+
+  /* class variables */
+
+  static IndexColorModel palette = null; // created when first needed
+
+  /* instance variables */
+
+  final byte[] bits;              // four pixels per byte, low bits first
+  final int half;                 // width and height of quadrant
+  final int rowBytes;             // bytes per row in <bits>
+  final BlueRedWhite1Spec spec;   // parameters that created this icon
+
+  /* class constructor: only combine() creates icons, so bits stay private */
+
+  BlueRedWhite1Quad(BlueRedWhite1Spec spec, byte[] bits)
+  {
+    this.spec = spec;
+    this.half = spec.size / 2;
+    this.rowBytes = (half + 3) / 4; // round up to whole bytes
+    this.bits = bits;
+  }
+
+/*
+  combine() method
+
+  Create an icon from a packed stripe layer (see packBits) and the gray spans
+  of a crop mask (see BlueRedWhite1Render.cropSpans).  The stripe layer is
+  shared with other icons and is not changed; we copy it, then overwrite the
+  start of each row with gray.  Four gray pixels are one whole byte, so most
+  of the work is filling bytes, with at most one partial byte per row.
+*/
+  public static BlueRedWhite1Quad combine(BlueRedWhite1Spec spec,
+    byte[] stripes, int[] spans)
+  {
+    int half = spec.size / 2;     // width and height of quadrant
+    int rowBytes = (half + 3) / 4; // bytes per row
+    byte[] bits = stripes.clone(); // stripe layer is shared, don't change
+    for (int k = 0; k < half; k ++) // each row (y coordinate)
+    {
+      int from = k * rowBytes;    // first byte of row in <bits>
+      int whole = spans[k] >> 2;  // complete bytes that are all gray
+      int extra = spans[k] & 3;   // gray pixels in next byte, if any
+      Arrays.fill(bits, from, (from + whole), GRAY_BYTE);
+      if (extra > 0)              // low bits first, so gray is the low bits
+      {
+        int mask = (1 << (extra * 2)) - 1;
+        bits[from + whole] = (byte) ((bits[from + whole] & ~mask)
+          | (GRAY_BYTE & mask));
+      }
+    }
+    return(new BlueRedWhite1Quad(spec, bits));
+
+  } // end of combine() method
+
+/*
+  getBits() method
+
+  Return a copy of the packed top-left quadrant: four pixels per byte, low bits
+  first, with each row starting on a new byte (see getRowBytes).  This is a
+  copy because cached icons are shared with everyone who asks for them.
+*/
+  public byte[] getBits()
+  {
+    return(bits.clone());
+  }
+
+  /* RGB value for each color index, as a new array */
+
+  public static int[] getColors()
+  {
+    return(COLORS.clone());
+  }
+
+/*
+  getPalette() method
+
+  Return the color model for full images.  It is created the first time an
+  image is needed, not when this class is loaded, because creating any color
+  model starts part of AWT.  Headless jobs that only write PNG files (see
+  BlueRedWhite1Png) use the plain table from getColors() and never get here.
+*/
+  static synchronized IndexColorModel getPalette()
+  {
+    if (palette == null)
+    {
+      byte[] reds = new byte[COLORS.length]; // separate color components
+      byte[] greens = new byte[COLORS.length];
+      byte[] blues = new byte[COLORS.length];
+      for (int i = 0; i < COLORS.length; i ++)
+      {
+        reds[i] = (byte) (COLORS[i] >> 16);
+        greens[i] = (byte) (COLORS[i] >> 8);
+        blues[i] = (byte) COLORS[i];
+      }
+      palette = new IndexColorModel(8, COLORS.length, reds, greens, blues);
+    }
+    return(palette);
+  }
+
+  /* bytes per row in packed bits, and the parameters for this icon */
+
+  public int getRowBytes() { return(rowBytes); }
+  public BlueRedWhite1Spec getSpec() { return(spec); }
+
+/*
+  getRow() method
+
+  Put the color indexes for one row of the full icon image into an array, at a
+  given offset.  Each row in the bottom half is the reverse of a row in the top
+  half, and the top-right quadrant is the reverse of the top-left quadrant with
+  blue and red inverted.
+*/
+  public void getRow(int y, byte[] row, int offset)
+  {
+    int size = spec.size;         // width of full image
+    int k = (y < half) ? y : (size - y - 1); // row in quadrant
+    int from = k * rowBytes;      // first byte of row in <bits>
+    boolean reverse = (y >= half); // bottom half is reversed left to right
+
+    for (int i = 0; i < half; i ++) // each column (x) in quadrant
+    {
+      byte color = (byte) ((bits[from + (i >> 2)] >> ((i & 3) * 2)) & 3);
+      if (reverse)                // bottom-left inverted, bottom-right not
+      {
+        row[offset + size - i - 1] = color;
+        row[offset + i] = SWAP[color];
+      }
+      else                        // top-left normal, top-right inverted
+      {
+        row[offset + i] = color;
+        row[offset + size - i - 1] = SWAP[color];
+      }
+    }
+  } // end of getRow() method
+
+/*
+  packBits() method
+
+  Pack the top-left quadrant with one color index per byte into two bits per
+  pixel, four pixels per byte, low bits first.  Each row starts on a new byte.
+*/
+  public static byte[] packBits(BlueRedWhite1Spec spec, byte[] quadrant)
+  {
+    int half = spec.size / 2;     // width and height of quadrant
+    int rowBytes = (half + 3) / 4; // round up to whole bytes
+    byte[] result = new byte[rowBytes * half];
+
+    for (int k = 0; k < half; k ++) // each row (y coordinate)
+      packRow(quadrant, (k * half), result, (k * rowBytes), half);
+    return(result);
+
+  } // end of packBits() method
+
+/*
+  packRow() method
+
+  Pack <width> pixels with one color index per byte, starting at index <from>
+  in <row>, into two bits per pixel at index <to> in <result>.  The bytes in
+  <result> must start as zero (see packBits).
+*/
+  public static void packRow(byte[] row, int from, byte[] result, int to,
+    int width)
+  {
+    int whole = width & ~3;       // pixels in complete groups of four
+    for (int i = 0; i < whole; i += 4) // four pixels at a time
+      result[to ++] = (byte) (row[from + i] | (row[from + i + 1] << 2)
+        | (row[from + i + 2] << 4) | (row[from + i + 3] << 6));
+    for (int i = whole; i < width; i ++) // leftover pixels, if any
+      result[to] |= row[from + i] << ((i & 3) * 2);
+  }
+
+  /* color index with blue and red inverted, as in mirrored quadrants */
+
+  public static byte swapColor(int color)
+  {
+    return(SWAP[color]);
+  }
+
+/*
+  toImage() method
+
+  Create a full icon image with an indexed color model, writing color indexes
+  directly into the byte array that Java uses to hold the image data.  The
+  image may be scaled up by a whole number, where each pixel becomes a square
+  block of pixels.
+*/
+  public BufferedImage toImage()
+  {
+    return(toImage(1));           // normal size
+  }
+
+  public BufferedImage toImage(int scale)
+  {
+    if (scale > 1)                // bigger than normal
+    {
+      int size = spec.size * scale; // width and height of scaled image
+      BufferedImage image = new BufferedImage(size, size,
+        BufferedImage.TYPE_BYTE_INDEXED, getPalette());
+      byte[] pixels = ((DataBufferByte) image.getRaster().getDataBuffer())
+        .getData();               // one byte per pixel, row by row
+      byte[] row = new byte[spec.size]; // one row at normal size
+
+      for (int y = 0; y < spec.size; y ++) // each row at normal size
+      {
+        int first = y * scale * size; // first pixel of first scaled row
+        getRow(y, row, 0);
+        for (int i = 0; i < spec.size; i ++) // widen each pixel
+          Arrays.fill(pixels, (first + (i * scale)), (first + ((i + 1)
+            * scale)), row[i]);
+        for (int k = 1; k < scale; k ++) // copy first row to others
+          System.arraycopy(pixels, first, pixels, (first + (k * size)), size);
+      }
+      return(image);
+    }
+
+    int size = spec.size;         // width and height of full image
+    BufferedImage image = new BufferedImage(size, size,
+      BufferedImage.TYPE_BYTE_INDEXED, getPalette());
+    byte[] pixels = ((DataBufferByte) image.getRaster().getDataBuffer())
+      .getData();                 // one byte per pixel, row by row
+
+    for (int k = 0; k < half; k ++) // each row in top half
+    {
+      int top = k * size;         // first pixel of top row in image
+      int bottom = (size - k - 1) * size; // bottom row in image
+      getRow(k, pixels, top);
+      for (int i = 0; i < size; i ++) // reversed copy of whole top row
+        pixels[bottom + size - i - 1] = pixels[top + i];
+    }
+    return(image);
+
+  } // end of toImage() method
+
+} // end of BlueRedWhite1Quad class
+
+/* Copyright (c) 2022 by Keith Fenske.  Apache License or GNU GPL. */
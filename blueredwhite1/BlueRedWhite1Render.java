@@ -0,0 +1,394 @@
+/*
+  Blue Red White #1 - Icon Renderer
+  Written by: Keith Fenske, http://kwfenske.github.io/
+  Copyright (c) 2022 by Keith Fenske.  Apache License or GNU GPL.
+
+  This package creates icons without any GUI, for the BlueRedWhite1 program and
+  any other Java application.  Start with the BlueRedWhite1Spec and
+  BlueRedWhite1Render classes.  The package is compiled along with
+  BlueRedWhite1.java in the parent folder, or on its own.
+*/
+
+package blueredwhite1;
+
+import java.awt.image.*;          // buffered images
+import java.util.*;               // arrays
+
+/*
+  BlueRedWhite1Render class
+
+  This class creates icons from a set of parameters, and keeps a cache of
+  recent icons in compact form (see BlueRedWhite1Quad), limited by the total
+  number of bytes.  Nothing here depends upon the GUI sliders, so the same
+  icon is returned for the same parameters, no matter who is asking.
+
+  Any Java program may create its own renderers; the BlueRedWhite1 program
+  (GUI, batch export, and HTTP server) is only one client.  Parameters are
+  immutable, and a renderer has no state besides its caches and an optional
+  statistics listener (see setListener), so one renderer may be called by many
+  threads at the same time.  Renderers don't share anything with each other.
+  A renderer created with zero cache bytes remembers nothing, takes no locks,
+  and is best for a job that asks for each icon only once.  Results are the
+  same either way.  Icons in compact form are read-only, because cached icons
+  are given to everyone who asks for the same parameters.  The two layers are
+  shared the same way, so only this package can get them from the caches.
+  The static methods that draw each layer are public, for testing and for
+  callers that want one row at a time.
+
+  An icon is made from two layers.  The stripe layer depends only upon size,
+  white width, and red width.  The crop mask depends only upon size, border,
+  and corner curve.  Each layer has its own cache, so changing the border or
+  curve reuses the stripes, and changing the stripes reuses the mask.  Only
+  the final combine step is repeated.
+*/
+
+public class BlueRedWhite1Render
+{
+  /* constants */
+
+  static final int MASK_BYTES = 1024 * 1024; // maximum bytes in crop masks
+  public static final int MAX_SIZE = 16384; // largest icon size (pixels)
+  public static final int OUR_BLUE = 0x000080; // medium blue (RGB)
+  public static final int OUR_GRAY = 0xCCCCCC; // background
+  public static final int OUR_RED = 0x800000; // medium red
+
+  /* instance variables */
+
+  volatile BlueRedWhite1Listener listener = null; // statistics, if any
+
+  final BlueRedWhite1Cache maskCache; // gray spans for each border and curve
+  final BlueRedWhite1Cache quadCache; // finished icons in compact form
+  final BlueRedWhite1Cache stripeCache; // packed stripes before cropping
+
+/*
+  class constructor
+
+  Create a renderer that keeps up to <cacheBytes> of finished icons, and the
+  same again of stripe layers.  Zero (or less) means no caches at all.
+*/
+  public BlueRedWhite1Render(long cacheBytes)
+  {
+    if (cacheBytes > 0)
+    {
+      maskCache = new BlueRedWhite1Cache(Math.min(cacheBytes, MASK_BYTES));
+      quadCache = new BlueRedWhite1Cache(cacheBytes);
+      stripeCache = new BlueRedWhite1Cache(cacheBytes);
+    }
+    else                          // caller wants every icon created again
+    {
+      maskCache = quadCache = stripeCache = null;
+    }
+  }
+
+/*
+  createImage() method
+
+  Create a new icon image from the parameters, without looking in the cache.
+  Return null if cancelled (see createQuad).
+*/
+  public BufferedImage createImage(BlueRedWhite1Spec spec)
+  {
+    BlueRedWhite1Quad quad = createQuad(spec);
+    return((quad == null) ? null : quad.toImage());
+  }
+
+/*
+  createQuad() method
+
+  Create a new icon in compact form from the parameters, without looking in the
+  icon cache.  The stripe and crop layers come from their own caches if they
+  are there (see getStripes and getMask), so a sweep that changes only some of
+  the parameters doesn't repeat work.  If the current thread is interrupted,
+  stop early and return null.  That is how the GUI cancels images that are no
+  longer wanted.  The interrupt is left set for the caller to see.
+
+  There are two parts to drawing the icon.  First is to create the blue and red
+  stripes on a white background.  Second is to crop off the border and rounded
+  corners.  Both are done on the top-left quadrant only, which is mirrored into
+  the other three positions when a full image is needed.
+
+  It would be nice if Java could use a rounded rectangle to clip the colored
+  stripes.  This may be quite complicated, if it's even possible.  A mask was
+  previously created from the fillRoundRect() method, but was not symmetrical
+  (and never has been).
+
+  What we do here is old school geometry: draw the stripes, calculate curves,
+  and replace cropped parts with a shade of gray.  Pixels are written directly
+  as color indexes into arrays, because going through setRGB() and getRGB() for
+  each pixel is slow (color models, bounds checking, etc) for large icons.
+*/
+  public BlueRedWhite1Quad createQuad(BlueRedWhite1Spec spec)
+  {
+    byte[] stripes = getStripes(spec); // blue and red stripes on white
+    if ((stripes == null) || Thread.currentThread().isInterrupted())
+      return(null);               // has it been cancelled?
+    int[] spans = getMask(spec);  // gray border and rounded corners
+    if (Thread.currentThread().isInterrupted())
+      return(null);
+
+    long started = System.nanoTime(); // for timing statistics
+    BlueRedWhite1Quad result = BlueRedWhite1Quad.combine(spec, stripes, spans);
+    record(BlueRedWhite1Listener.COMBINE, started, spec.size);
+    return(result);               // packed into two bits per pixel
+
+  } // end of createQuad() method
+
+/*
+  cropSpans() method
+
+  Return the number of gray pixels at the start of each row in the top-left
+  quadrant, using a method that works even if the corners are completely round
+  or completely square.  Pixels are within a rounded rectangle if the square of
+  their distance from a center point is within range.  For one row, that range
+  is a single span ending at the center of the circle, so we find where the
+  span starts instead of testing every pixel.  Integer arithmetic decides the
+  final answer, so results are the same as testing each pixel.
+*/
+  public static int[] cropSpans(BlueRedWhite1Spec spec)
+  {
+    int iconSizeHalf = spec.size / 2; // width and height of quadrant
+    int borderWidth = spec.border; // zero or more, limited to half size
+    int radius = (int) Math.round(spec.curve * (iconSizeHalf - borderWidth)
+      / 100.0);                   // radius of circle
+    int center = borderWidth + radius; // center of circle for rounding
+    int square = (int) ((radius + 0.3) * (radius + 0.3)); // allow some fuzz
+    int[] result = new int[iconSizeHalf]; // one number per row
+
+    for (int k = 0; k < iconSizeHalf; k ++) // each row (y coordinate)
+    {
+      if (k < borderWidth)        // always clear border
+        result[k] = iconSizeHalf;
+      else if (k >= center)       // solid section, no curve
+        result[k] = borderWidth;
+      else
+      {
+        /* Pixel <i> is outside the curve when (center - i) squared is more
+        than <remain>.  Find the largest distance <d> that is inside. */
+
+        int remain = square - ((k - center) * (k - center));
+        int start = center;       // assume whole curve section is outside
+        if (remain >= 0)
+        {
+          int d = (int) Math.sqrt(remain); // may be off by one, so check
+          while ((d * d) > remain) d --;
+          while (((d + 1) * (d + 1)) <= remain) d ++;
+          start = Math.max(borderWidth, (center - d));
+        }
+        result[k] = start;
+      }
+    }
+    return(result);
+
+  } // end of cropSpans() method
+
+/*
+  fillFullRow() method
+
+  Create one row <y> of the full icon directly from the stripe, crop, and
+  mirror rules, without a quadrant buffer.  The caller gets <spans> from
+  cropSpans() once for all rows.  Color indexes go into an array starting at
+  <offset>.  Results are the same as the matching row of toImage().
+*/
+  public static void fillFullRow(BlueRedWhite1Spec spec, int[] spans, int y,
+    byte[] row, int offset)
+  {
+    int size = spec.size;         // width of full image
+    int half = size / 2;          // width of quadrant
+    int k = (y < half) ? y : (size - y - 1); // row in quadrant
+    fillStripeRow(row, offset, k, spec); // top-left quadrant
+    Arrays.fill(row, offset, (offset + spans[k]), BlueRedWhite1Quad.GRAY);
+    for (int i = 0; i < half; i ++) // top-right is mirror, blue and red swap
+      row[offset + size - i - 1] = BlueRedWhite1Quad.SWAP[row[offset + i]];
+
+    if (y >= half)                // bottom row is reverse of top row
+    {
+      for (int i = 0, j = (offset + size - 1); i < half; i ++, j --)
+      {
+        byte temp = row[offset + i];
+        row[offset + i] = row[j];
+        row[j] = temp;
+      }
+    }
+  } // end of fillFullRow() method
+
+/*
+  fillStripes() method
+
+  Draw alternating blue and red stripes on a white background in the top-left
+  quadrant, one row at a time (see fillStripeRow).
+*/
+  public static void fillStripes(byte[] quadrant, BlueRedWhite1Spec spec)
+  {
+    int iconSizeHalf = spec.size / 2; // width and height of quadrant
+    for (int k = 0; k < iconSizeHalf; k ++) // each row (y coordinate)
+      fillStripeRow(quadrant, (k * iconSizeHalf), k, spec);
+  }
+
+/*
+  fillStripeRow() method
+
+  Draw one row <k> of alternating blue and red stripes on a white background in
+  the top-left quadrant, starting at index <start> in an array.  We use an
+  <offset> variable relative to the center.  Each stripe is shaped like an "L":
+  a horizontal part across the full width up to its inside edge, and a
+  vertical part above that.  Later stripes are drawn over earlier ones, and are
+  closer to the center.
+*/
+  public static void fillStripeRow(byte[] row, int start, int k,
+    BlueRedWhite1Spec spec)
+  {
+    int iconSizeHalf = spec.size / 2; // width of quadrant
+    Arrays.fill(row, start, (start + iconSizeHalf), BlueRedWhite1Quad.WHITE);
+
+    int redWidth = spec.red;      // one or more
+    int whiteWidth = spec.white;  // zero or more, always even
+    int offset = whiteWidth / 2;  // may be zero, don't really care
+    boolean flipFlag = false;     // flips back and forth to alternate
+    while (offset < iconSizeHalf) // yes, spills over, gets cropped
+    {
+      int inner = iconSizeHalf - offset; // inside edge of this stripe
+      if (k >= inner)             // this row is below all remaining stripes
+        break;
+      int outer = Math.max(0, (inner - redWidth)); // outside edge, cropped
+      byte color = flipFlag ? BlueRedWhite1Quad.RED : BlueRedWhite1Quad.BLUE;
+
+      if (k >= outer)             // horizontal
+        Arrays.fill(row, start, (start + inner), color);
+      else                        // vertical
+        Arrays.fill(row, (start + outer), (start + inner), color);
+
+      flipFlag = ! flipFlag;      // reverse colors next loop
+      offset += redWidth + whiteWidth; // where next stripe starts
+    }
+  } // end of fillStripeRow() method
+
+/*
+  getImage() method
+
+  Return a full icon image for the parameters, from the cached compact form if
+  we have one.  Null is returned if creating the icon has been cancelled.
+*/
+  public BufferedImage getImage(BlueRedWhite1Spec spec)
+  {
+    BlueRedWhite1Quad quad = getQuad(spec);
+    if (quad == null)
+      return(null);
+    long started = System.nanoTime(); // for timing statistics
+    BufferedImage result = quad.toImage();
+    record(BlueRedWhite1Listener.MIRROR, started, spec.size);
+    return(result);
+  }
+
+/*
+  getMask() method
+
+  Return the gray spans for the border and rounded corners (see cropSpans),
+  from the cache if we have them.  The mask doesn't depend upon the stripes.
+  The array may be shared with other callers, and must not be changed.
+*/
+  int[] getMask(BlueRedWhite1Spec spec)
+  {
+    BlueRedWhite1Spec key = spec.getMaskKey(); // ignore stripe parameters
+    int[] result = (maskCache == null) ? null : (int[]) maskCache.get(key);
+    if (result == null)           // not cached, calculate again
+    {
+      long started = System.nanoTime(); // for timing statistics
+      result = cropSpans(key);
+      if (maskCache != null)
+        result = (int[]) maskCache.put(key, result);
+      record(BlueRedWhite1Listener.CROP, started, spec.size);
+    }
+    return(result);
+  }
+
+/*
+  getQuad() method
+
+  Return an icon in compact form for the parameters, from the cache if we have
+  one, or else create a new icon and remember it.  Null is returned if creating
+  the icon has been cancelled (interrupted).
+*/
+  public BlueRedWhite1Quad getQuad(BlueRedWhite1Spec spec)
+  {
+    if (quadCache == null)        // nothing remembered, always create
+      return(createQuad(spec));
+    BlueRedWhite1Quad result = (BlueRedWhite1Quad) quadCache.get(spec);
+    BlueRedWhite1Listener hook = listener; // may change at any time
+    if (hook != null)
+      hook.cacheLookup(result != null); // hit or miss
+    if (result != null)           // found in cache, nothing more to do
+      return(result);
+
+    /* Create the new icon without holding the cache lock, so that several
+    threads can create different icons at the same time. */
+
+    result = createQuad(spec);
+    if (result == null)           // don't remember cancelled icons
+      return(null);
+    return((BlueRedWhite1Quad) quadCache.put(spec, result));
+
+  } // end of getQuad() method
+
+/*
+  getStripes() method
+
+  Return the stripe layer for the top-left quadrant, packed the same way as
+  an icon in compact form, from the cache if we have it.  The stripes don't
+  depend upon the border or corner curve.  Null is returned if the current
+  thread is interrupted while drawing the stripes.  The array may be shared
+  with other callers, and must not be changed (see BlueRedWhite1Quad.combine).
+*/
+  byte[] getStripes(BlueRedWhite1Spec spec)
+  {
+    BlueRedWhite1Spec key = spec.getStripeKey(); // ignore crop parameters
+    byte[] result = (stripeCache == null) ? null
+      : (byte[]) stripeCache.get(key);
+    if (result != null)           // found in cache, nothing more to do
+      return(result);
+
+    /* Each row of the top-left quadrant is drawn with one color index per
+    byte, then packed straight into the result, so we only need a buffer for
+    one row, not the whole quadrant. */
+
+    int iconSizeHalf = key.size / 2; // half the size on left, half on right
+    int rowBytes = (iconSizeHalf + 3) / 4; // packed bytes per row
+    byte[] row = new byte[iconSizeHalf]; // one row, one color per byte
+    result = new byte[rowBytes * iconSizeHalf];
+
+    long started = System.nanoTime(); // for timing statistics
+    for (int k = 0; k < iconSizeHalf; k ++) // each row (y coordinate)
+    {
+      fillStripeRow(row, 0, k, key); // blue and red stripes on white
+      BlueRedWhite1Quad.packRow(row, 0, result, (k * rowBytes),
+        iconSizeHalf);
+    }
+    record(BlueRedWhite1Listener.STRIPES, started, spec.size);
+    if (Thread.currentThread().isInterrupted()) // has it been cancelled?
+      return(null);
+    return((stripeCache == null) ? result
+      : (byte[]) stripeCache.put(key, result));
+
+  } // end of getStripes() method
+
+/*
+  record() and setListener() methods
+
+  Tell our statistics listener, if we have one, that a stage has finished.
+  The listener may be set or removed at any time, by any thread; null means
+  none.
+*/
+  void record(int stage, long started, int size)
+  {
+    BlueRedWhite1Listener hook = listener; // may change at any time
+    if (hook != null)
+      hook.stageDone(stage, started, size);
+  }
+
+  public void setListener(BlueRedWhite1Listener listener)
+  {
+    this.listener = listener;
+  }
+
+} // end of BlueRedWhite1Render class
+
+/* Copyright (c) 2022 by Keith Fenske.  Apache License or GNU GPL. */
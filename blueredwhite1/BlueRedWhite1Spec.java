@@ -0,0 +1,113 @@
+/*
+  Blue Red White #1 - Icon Parameters
+  Written by: Keith Fenske, http://kwfenske.github.io/
+  Copyright (c) 2022 by Keith Fenske.  Apache License or GNU GPL.
+*/
+
+package blueredwhite1;
+
+/*
+  BlueRedWhite1Spec class
+
+  This class holds the parameters for one icon image.  Values are adjusted the
+  same way the original drawing code did (even sizes, etc), so two objects that
+  would create the same image are equal.  Objects are immutable and may be
+  used as keys in a hash table, or passed between threads without locking.
+  Numbers that could never make an icon are refused when the object is
+  created, instead of failing later in some other thread.
+*/
+
+public final class BlueRedWhite1Spec
+{
+  /* instance variables */
+
+  final int border;               // internal border (pixels)
+  final int curve;                // corner curve (percent)
+  final int red;                  // blue red width (pixels)
+  final int size;                 // overall size (pixels, even)
+  final int white;                // white width (pixels, even)
+
+  /* class constructor */
+
+  public BlueRedWhite1Spec(int size, int border, int curve, int white,
+    int red)
+  {
+    if ((size < 2) || (border < 0) || (curve < 0) || (curve > 100)
+      || (white < 0))
+    {
+      throw new IllegalArgumentException("bad icon parameters: size=" + size
+        + " border=" + border + " curve=" + curve + " white=" + white);
+    }
+    this.size = size - (size % 2); // basic design requires an even number
+    this.border = Math.min(border, (this.size / 2)); // limit
+    this.curve = curve;
+    this.white = white - (white % 2); // basic design requires an even number
+    this.red = Math.max(1, red);  // infinite loop if red white both zero
+  }
+
+  /* compare with another object, for hash tables */
+
+  public boolean equals(Object other)
+  {
+    if ((other instanceof BlueRedWhite1Spec) == false)
+      return(false);
+    BlueRedWhite1Spec that = (BlueRedWhite1Spec) other;
+    return((this.border == that.border) && (this.curve == that.curve)
+      && (this.red == that.red) && (this.size == that.size)
+      && (this.white == that.white));
+  }
+
+  public int hashCode()
+  {
+    return((((((size * 31) + border) * 31 + curve) * 31) + white) * 31 + red);
+  }
+
+  /* parameters, after adjustment; see the class constructor */
+
+  public int getBorder() { return(border); }
+  public int getCurve() { return(curve); }
+  public int getRed() { return(red); }
+  public int getSize() { return(size); }
+  public int getWhite() { return(white); }
+
+  /* name for files exported with these parameters, without an extension */
+
+  public String getFileName()
+  {
+    return("brw-s" + size + "-b" + border + "-c" + curve + "-w" + white + "-r"
+      + red);
+  }
+
+  /* parameters for the crop mask only: no stripes (see Render.getMask) */
+
+  public BlueRedWhite1Spec getMaskKey()
+  {
+    return(new BlueRedWhite1Spec(size, border, curve, 0, 1));
+  }
+
+  /* parameters for the stripe layer only: no crop (see Render.getStripes) */
+
+  public BlueRedWhite1Spec getStripeKey()
+  {
+    return(new BlueRedWhite1Spec(size, 0, 0, white, red));
+  }
+
+  /* same parameters for a different icon size, with widths scaled to match */
+
+  public BlueRedWhite1Spec scaleTo(int newSize)
+  {
+    double scale = ((double) newSize) / size; // may be bigger or smaller
+    return(new BlueRedWhite1Spec(newSize, (int) Math.round(border * scale),
+      curve, (2 * (int) Math.round(white * scale / 2)),
+      (int) Math.round(red * scale)));
+  }
+
+  public String toString()
+  {
+    return("size=" + size + " border=" + border + " curve=" + curve
+      + " white=" + white + " red=" + red);
+  }
+
+} // end of BlueRedWhite1Spec class
+
+/* Copyright (c) 2022 by Keith Fenske.  Apache License or GNU GPL. */